@@ -0,0 +1,9 @@
+#!/bin/bash
+# Akış replikasyonu için kullanıcı ve pg_hba kaydı (postgres imajı bunu yalnızca boş veri dizininde çalıştırır)
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-EOSQL
+    CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD '${REPLICATION_PASSWORD}';
+EOSQL
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,15 @@
+#!/bin/bash
+# Replika: veri dizini boşsa birincilin tam kopyasını alıp (standby.signal ile) bekleme modunda başlar
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until pg_basebackup -d "host=${PRIMARY_HOST} user=replicator password=${REPLICATION_PASSWORD}" \
+            -D "$PGDATA" -R -X stream -c fast; do
+        echo "Birincil veritabanı hazır değil, bekleniyor..."
+        rm -rf "${PGDATA:?}"/*
+        sleep 2
+    done
+    chmod 0700 "$PGDATA"
+fi
+
+exec docker-entrypoint.sh postgres
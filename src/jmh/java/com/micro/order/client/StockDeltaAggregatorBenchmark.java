@@ -0,0 +1,44 @@
+package com.micro.order.client;
+
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.support.InMemoryRabbitMQClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Birçok siparişin stok değişikliklerinin birleştirilip tek mesaja dönüştürülme maliyeti
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockDeltaAggregatorBenchmark {
+
+    @Param({"10", "100"})
+    private int ordersPerFlush;
+
+    private StockDeltaAggregator aggregator;
+    private List<List<OrderProduct>> orders;
+
+    @Setup
+    public void setUp() {
+        aggregator = new StockDeltaAggregator(new InMemoryRabbitMQClient(), 1000, 10_000);
+        orders = new ArrayList<>(ordersPerFlush);
+        for (int i = 0; i < ordersPerFlush; i++) {
+            // Sıcak ürünler: her sipariş 20 üründen 3'ünü içerir
+            orders.add(List.of(new OrderProduct(i % 20, 1), new OrderProduct((i + 7) % 20, 2),
+                    new OrderProduct((i + 13) % 20, 1)));
+        }
+    }
+
+    @Benchmark
+    public void submitAndFlush() {
+        for (List<OrderProduct> products : orders) {
+            aggregator.submit(products, StockDeltaAggregator.DECREASE_STOCK);
+        }
+        aggregator.flush();
+    }
+}
@@ -0,0 +1,98 @@
+package com.micro.order.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Liste yanıtının serileştirme maliyeti: Order entity'sinin yansıma tabanlı JSON'u ile OrderResponse'un önceden
+ * yazılmış serializer'ı (JSON ve Smile). ObjectMapper Spring Boot'unkine benzer ayarlanır (JavaTimeModule,
+ * tarihler ISO-8601). Sipariş başına bayt (ham ve gzip) setup'ta yazdırılır.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    private static final int PRODUCTS_PER_ORDER = 3;
+
+    @Param({"1", "50"})
+    private int orderCount;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private List<Order> entities;
+    private List<OrderResponse> responses;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        smileMapper = jsonMapper.copyWith(new SmileFactory());
+
+        entities = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setId(1_000_000L + i);
+            order.setUserId(101L + i % 10);
+            order.setCartId(5_000L + i);
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
+            order.setPaymentStatus(PaymentStatus.SUCCESS);
+            List<OrderProduct> products = new ArrayList<>();
+            for (int p = 0; p < PRODUCTS_PER_ORDER; p++) {
+                products.add(new OrderProduct(200L + p, p + 1));
+            }
+            order.setProducts(products);
+            entities.add(order);
+        }
+        responses = entities.stream().map(OrderResponse::of).toList();
+
+        System.out.printf("%n%-16s %12s %12s%n", "biçim", "bayt/sipariş", "gzip/sipariş");
+        report("entity json", entityJson());
+        report("response json", responseJson());
+        report("response smile", responseSmile());
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] responseJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] responseSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(responses);
+    }
+
+    private void report(String format, byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        System.out.printf("%-16s %12.1f %12.1f%n", format,
+                (double) body.length / orderCount, (double) compressed.size() / orderCount);
+    }
+}
@@ -0,0 +1,270 @@
+package com.micro.order.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.micro.order.OrderApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OrderController uçlarına açık modelde (open-model) yük üreten sürücü.
+ * İstekler, yanıtları beklenmeden Poisson dağılımlı aralıklarla load.rate istek/sn hızında başlatılır;
+ * gecikme isteğin planlanan başlangıç zamanından ölçüldüğünden servis yavaşladığında bekleyen istekler de sayılır.
+ * load.base-url verilmezse uygulama gömülü H2 veritabanı ve StubServices ile aynı JVM'de başlatılır.
+ * <p>
+ * Çalıştırma: {@code mvn -Pbenchmark test-compile exec:java@load -Dload.rate=500 -Dload.duration-s=60}
+ * <p>
+ * Ayarlar (sistem özellikleri): load.rate, load.warmup-s, load.duration-s, load.mix (create,get,user,cancel ağırlıkları),
+ * load.users, load.products, load.base-url, load.result (JSON sonuç dosyası) ve StubProfile'daki load.stub.* değerleri.
+ */
+public class LoadDriver {
+
+    enum Operation { CREATE, GET, USER, CANCEL }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final int RECENT_ORDERS = 4096; // GET/CANCEL için son oluşturulan sipariş id'leri
+
+    private final String baseUrl;
+    private final double rate;
+    private final int[] mix;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong cartIds = new AtomicLong();
+    private final AtomicLongArray recentOrders = new AtomicLongArray(RECENT_ORDERS);
+    private final AtomicLong createdOrders = new AtomicLong();
+
+    LoadDriver(String baseUrl, double rate, int[] mix) {
+        this.baseUrl = baseUrl;
+        this.rate = rate;
+        this.mix = mix;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(MAX_LATENCY_NANOS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "200"));
+        int warmupSeconds = Integer.getInteger("load.warmup-s", 10);
+        int durationSeconds = Integer.getInteger("load.duration-s", 30);
+        int[] mix = parseMix(System.getProperty("load.mix", "60,25,10,5"));
+        String baseUrl = System.getProperty("load.base-url");
+
+        ConfigurableApplicationContext context = null;
+        if (baseUrl == null) {
+            context = startApplication();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            LoadDriver driver = new LoadDriver(baseUrl, rate, mix);
+            System.out.printf("Hedef %s, %.0f istek/sn, karışım create/get/user/cancel = %s%n",
+                    baseUrl, rate, System.getProperty("load.mix", "60,25,10,5"));
+            driver.run(TimeUnit.SECONDS.toNanos(warmupSeconds));
+            driver.reset();
+            long elapsedNanos = driver.run(TimeUnit.SECONDS.toNanos(durationSeconds));
+            ObjectNode report = driver.report(elapsedNanos);
+            String result = System.getProperty("load.result");
+            if (result != null) {
+                driver.objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(result), report);
+                System.out.println("Sonuç yazıldı: " + result);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Uygulamayı rastgele portta, gömülü veritabanı ve sahte servislerle başlat (argümanlar application.properties'i ezer)
+    static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(OrderApplication.class, StubServices.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:order-load;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.micro.order=WARN");
+    }
+
+    // durationNanos boyunca istek başlat, sonra başlatılanların bitmesini bekle; geçen süreyi döner
+    long run(long durationNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long intended = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (intended < end) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduledAt = intended;
+                Operation operation = nextOperation();
+                executor.execute(() -> execute(operation, scheduledAt));
+                // Poisson geliş süreci: aralıklar üstel dağılımlı
+                intended += (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) / rate * 1e9);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(count -> count.set(0));
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(mix[mix.length - 1]);
+        Operation[] operations = Operation.values();
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < mix[i]) {
+                // Henüz sipariş yoksa okuma/iptal yerine sipariş oluştur
+                return operations[i] == Operation.CREATE || createdOrders.get() > 0 ? operations[i] : Operation.CREATE;
+            }
+        }
+        return Operation.CREATE;
+    }
+
+    private void execute(Operation operation, long scheduledAt) {
+        boolean ok;
+        try {
+            ok = switch (operation) {
+                case CREATE -> createOrder();
+                case GET -> send(HttpRequest.newBuilder(uri("/api/orders/" + recentOrder())).GET()) != null;
+                case USER -> send(HttpRequest.newBuilder(uri("/api/orders/user/"
+                        + StubServices.userOf(ThreadLocalRandom.current().nextLong(Math.max(1, cartIds.get()))))).GET()) != null;
+                case CANCEL -> send(post("/api/orders/cancel", "{\"orderId\":" + recentOrder() + "}")) != null;
+            };
+        } catch (IOException | RuntimeException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        }
+        recorders.get(operation).recordValue(Math.min(System.nanoTime() - scheduledAt, MAX_LATENCY_NANOS));
+        if (!ok) {
+            errors.get(operation).incrementAndGet();
+        }
+    }
+
+    private boolean createOrder() throws IOException, InterruptedException {
+        long cartId = cartIds.incrementAndGet();
+        String body = "{\"userId\":" + StubServices.userOf(cartId) + ",\"cartId\":" + cartId + "}";
+        String response = send(post("/api/orders", body));
+        if (response == null) {
+            return false;
+        }
+        JsonNode id = objectMapper.readTree(response).get("id");
+        if (id != null) {
+            recentOrders.set((int) (createdOrders.getAndIncrement() % RECENT_ORDERS), id.asLong());
+        }
+        return true;
+    }
+
+    private long recentOrder() {
+        long created = createdOrders.get();
+        return recentOrders.get(ThreadLocalRandom.current().nextInt((int) Math.min(created, RECENT_ORDERS)));
+    }
+
+    // 2xx yanıtın gövdesini, aksi halde null döner
+    private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request.timeout(REQUEST_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() / 100 == 2 ? response.body() : null;
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    // Uç bazında ve toplam: istek sayısı, hata, verim ve gecikme yüzdelikleri (ms)
+    ObjectNode report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("targetRate", rate);
+        report.put("durationSeconds", seconds);
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        long totalErrors = 0;
+        System.out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "uç", "istek", "hata", "istek/sn", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            long errorCount = errors.get(operation).get();
+            total.add(histogram);
+            totalErrors += errorCount;
+            report.set(operation.name().toLowerCase(), line(operation.name().toLowerCase(), histogram, errorCount, seconds));
+        }
+        report.set("total", line("toplam", total, totalErrors, seconds));
+        return report;
+    }
+
+    private ObjectNode line(String name, Histogram histogram, long errorCount, double seconds) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("requests", histogram.getTotalCount());
+        node.put("errors", errorCount);
+        node.put("throughput", histogram.getTotalCount() / seconds);
+        node.put("p50Ms", millis(histogram, 50));
+        node.put("p90Ms", millis(histogram, 90));
+        node.put("p99Ms", millis(histogram, 99));
+        node.put("p999Ms", millis(histogram, 99.9));
+        node.put("maxMs", histogram.getMaxValue() / 1e6);
+        System.out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                histogram.getTotalCount(), errorCount, node.get("throughput").asDouble(),
+                node.get("p50Ms").asDouble(), node.get("p90Ms").asDouble(), node.get("p99Ms").asDouble(),
+                node.get("p999Ms").asDouble(), node.get("maxMs").asDouble());
+        return node;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    // "60,25,10,5" -> kümülatif ağırlıklar [60, 85, 95, 100]
+    static int[] parseMix(String mix) {
+        String[] parts = mix.split(",");
+        if (parts.length != Operation.values().length) {
+            throw new IllegalArgumentException("load.mix create,get,user,cancel ağırlıklarını içermeli: " + mix);
+        }
+        int[] cumulative = new int[parts.length];
+        int sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            sum += Integer.parseInt(parts[i].trim());
+            cumulative[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("load.mix ağırlıklarının toplamı pozitif olmalı: " + mix);
+        }
+        return cumulative;
+    }
+}
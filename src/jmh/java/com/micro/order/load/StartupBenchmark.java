@@ -0,0 +1,194 @@
+package com.micro.order.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Uygulamayı ayrı bir JVM'de tekrar tekrar başlatıp ilk isteğe yanıt verme süresini (time-to-first-request)
+ * ve o andaki bellek kullanımını (RSS, Linux /proc) ölçer.
+ * <p>
+ * Varyantlar: baseline, Dockerfile imajındaki gibi {@code java -jar target/order-*.jar}; fast, fast-startup
+ * Maven profilinin çıktısı (AOT, CDS arşivi, prod profili ve lazy başlatma). Her iki jar da önceden üretilmelidir:
+ * {@code mvn package -DskipTests && mvn -Pfast-startup package -DskipTests}, ardından
+ * {@code mvn -Pbenchmark test-compile exec:java@startup}.
+ * <p>
+ * Ayarlar (sistem özellikleri): startup.variants (baseline,fast), startup.runs, startup.probe-path (herhangi bir
+ * HTTP yanıtı yeterlidir), startup.timeout-s, startup.jvm-args ve startup.app-args (tüm varyantlara boşlukla
+ * ayrılmış ek argümanlar, ör. --spring.datasource.url=...), startup.result (JSON sonuç dosyası).
+ */
+public class StartupBenchmark {
+
+    private static final Duration PROBE_TIMEOUT = Duration.ofMillis(500);
+    private static final long PROBE_INTERVAL_MS = 10;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(PROBE_TIMEOUT).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String probePath;
+    private final long timeoutNanos;
+
+    StartupBenchmark(String probePath, long timeoutNanos) {
+        this.probePath = probePath;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    record Sample(double firstRequestMs, double rssMb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> variants = List.of(System.getProperty("startup.variants", "baseline,fast").split(","));
+        int runs = Integer.getInteger("startup.runs", 5);
+        StartupBenchmark benchmark = new StartupBenchmark(System.getProperty("startup.probe-path", "/actuator/info"),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("startup.timeout-s", 120)));
+        List<String> jvmArgs = split(System.getProperty("startup.jvm-args", ""));
+        List<String> appArgs = split(System.getProperty("startup.app-args", ""));
+
+        ObjectNode report = benchmark.objectMapper.createObjectNode();
+        report.put("runs", runs);
+        report.put("probePath", benchmark.probePath);
+        System.out.printf("%-10s %6s %14s %14s %14s %12s %12s%n",
+                "varyant", "çalış.", "ilk istek p50", "min ms", "max ms", "RSS p50 MB", "RSS max MB");
+        for (String variant : variants) {
+            List<Sample> samples = new ArrayList<>(runs);
+            for (int i = 0; i < runs; i++) {
+                samples.add(benchmark.measure(command(variant.trim(), jvmArgs, appArgs)));
+            }
+            report.set(variant.trim(), benchmark.summary(variant.trim(), samples));
+        }
+        String result = System.getProperty("startup.result");
+        if (result != null) {
+            benchmark.objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(result), report);
+            System.out.println("Sonuç yazıldı: " + result);
+        }
+    }
+
+    // Varyantın başlatma komutu; uygulama rastgele boş bir portta açılır
+    static List<String> command(String variant, List<String> jvmArgs, List<String> appArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        switch (variant) {
+            case "baseline" -> command.addAll(List.of("-jar", applicationJar(Path.of("target")).toString()));
+            case "fast" -> {
+                Path directory = Path.of("target", "fast-startup");
+                command.addAll(List.of("-XX:SharedArchiveFile=" + directory.resolve("application.jsa"),
+                        "-Dspring.aot.enabled=true", "-Dspring.profiles.active=prod",
+                        "-jar", applicationJar(directory).toString()));
+            }
+            default -> throw new IllegalArgumentException("Bilinmeyen startup.variants değeri: " + variant);
+        }
+        command.add("--server.port=" + freePort());
+        command.addAll(appArgs);
+        return command;
+    }
+
+    // Süreci başlat, probe yolu yanıt verene kadar bekle, RSS'i oku ve süreci kapat
+    Sample measure(List<String> command) throws IOException, InterruptedException {
+        String port = command.stream().filter(arg -> arg.startsWith("--server.port=")).findFirst()
+                .orElseThrow().substring("--server.port=".length());
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + probePath))
+                .timeout(PROBE_TIMEOUT).GET().build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Uygulama başlamadan kapandı (çıkış kodu " + process.exitValue()
+                            + "): " + String.join(" ", command));
+                }
+                if (System.nanoTime() - start > timeoutNanos) {
+                    throw new IllegalStateException("Uygulama zamanında yanıt vermedi: " + String.join(" ", command));
+                }
+                try {
+                    httpClient.send(probe, HttpResponse.BodyHandlers.discarding());
+                    break;
+                } catch (IOException e) {
+                    Thread.sleep(PROBE_INTERVAL_MS);
+                }
+            }
+            double firstRequestMs = (System.nanoTime() - start) / 1e6;
+            return new Sample(firstRequestMs, rssMb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private ObjectNode summary(String variant, List<Sample> samples) {
+        double[] firstRequest = samples.stream().mapToDouble(Sample::firstRequestMs).sorted().toArray();
+        double[] rss = samples.stream().mapToDouble(Sample::rssMb).sorted().toArray();
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("firstRequestP50Ms", median(firstRequest));
+        node.put("firstRequestMinMs", firstRequest[0]);
+        node.put("firstRequestMaxMs", firstRequest[firstRequest.length - 1]);
+        node.put("rssP50Mb", median(rss));
+        node.put("rssMaxMb", rss[rss.length - 1]);
+        System.out.printf("%-10s %6d %14.0f %14.0f %14.0f %12.1f %12.1f%n", variant, samples.size(),
+                median(firstRequest), firstRequest[0], firstRequest[firstRequest.length - 1],
+                median(rss), rss[rss.length - 1]);
+        return node;
+    }
+
+    // /proc/<pid>/status içindeki VmRSS (kB); Linux dışında NaN
+    private static double rssMb(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return Double.NaN;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .mapToDouble(line -> Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) / 1024.0)
+                    .findFirst()
+                    .orElse(Double.NaN);
+        } catch (IOException e) {
+            return Double.NaN;
+        }
+    }
+
+    // Dizindeki çalıştırılabilir uygulama jar'ı (order-<sürüm>.jar, -plain hariç)
+    private static Path applicationJar(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith("order-") && name.endsWith(".jar") && !name.endsWith("-plain.jar");
+                    })
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(directory + " altında uygulama jar'ı yok; önce mvn package çalıştırın"));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.trim().split("\\s+")).filter(part -> !part.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.micro.order.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sahte servisin gecikme ve hata dağılımı: sabit gecikme + üstel dağılımlı ek gecikme (ortalama jitterMs),
+ * errorRate olasılıkla hata. Değerler sistem özelliklerinden okunur:
+ * load.stub.&lt;kuyruk&gt;.latency-ms, load.stub.&lt;kuyruk&gt;.jitter-ms, load.stub.&lt;kuyruk&gt;.error-rate
+ */
+public record StubProfile(double latencyMs, double jitterMs, double errorRate) {
+
+    public static StubProfile of(String queue, StubProfile defaults) {
+        String prefix = "load.stub." + queue + ".";
+        return new StubProfile(
+                Double.parseDouble(System.getProperty(prefix + "latency-ms", String.valueOf(defaults.latencyMs))),
+                Double.parseDouble(System.getProperty(prefix + "jitter-ms", String.valueOf(defaults.jitterMs))),
+                Double.parseDouble(System.getProperty(prefix + "error-rate", String.valueOf(defaults.errorRate))));
+    }
+
+    // Gecikmeyi uygula; errorRate olasılıkla servis hatası fırlat
+    public void apply(String queue) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double delayMs = latencyMs + (jitterMs > 0 ? -jitterMs * Math.log(1.0 - random.nextDouble()) : 0);
+        if (delayMs > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep((long) (delayMs * 1000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Sahte servis kesildi: " + queue, e);
+            }
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new RuntimeException("Sahte servis hatası: " + queue);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1fms + exp(%.1fms), hata %.2f%%", latencyMs, jitterMs, errorRate * 100);
+    }
+}
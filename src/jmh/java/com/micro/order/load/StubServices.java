@@ -0,0 +1,98 @@
+package com.micro.order.load;
+
+import com.micro.order.client.LogPublisher;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.support.InMemoryRabbitMQClient;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sepet, ürün ve log servislerinin yerine geçen sahte yanıtlayıcılar (broker yerine InMemoryRabbitMQClient).
+ * Her kuyruğun gecikme/hata dağılımı StubProfile ile ayarlanır. Sepet içeriği cartId'den türetilir;
+ * aynı sepet her istendiğinde aynı kullanıcı ve ürünlerle döner.
+ * Bileşen taramasına girmemesi için @Configuration değildir; yalnızca LoadDriver bağlama ekler.
+ */
+public class StubServices {
+
+    public static final String CART_REQUEST_QUEUE = "get_cart_request";
+    public static final String CART_QUEUE = "cart_service_queue";
+
+    // load.users kullanıcı, load.products ürün arasından sepet üretilir
+    static final int USERS = Integer.getInteger("load.users", 1000);
+    static final int PRODUCTS = Integer.getInteger("load.products", 500);
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService stubExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    @Primary
+    public RabbitMQClient stubRabbitMQClient(ExecutorService stubExecutor) {
+        InMemoryRabbitMQClient client = new InMemoryRabbitMQClient().asyncExecutor(stubExecutor);
+        StubProfile cart = StubProfile.of(CART_REQUEST_QUEUE, new StubProfile(2, 1, 0));
+        client.respond(CART_REQUEST_QUEUE, message -> {
+            cart.apply(CART_REQUEST_QUEUE);
+            return cart(((CartRequest) message).cartId());
+        });
+        stub(client, CART_QUEUE, new StubProfile(1, 1, 0));
+        stub(client, StockDeltaAggregator.PRODUCT_QUEUE, new StubProfile(2, 2, 0));
+        stub(client, LogPublisher.LOG_QUEUE, new StubProfile(0.5, 0.5, 0));
+        return client;
+    }
+
+    // Broker olmadığından dinleyici konteynerleri başlatılmaz
+    @Bean
+    public static BeanPostProcessor disableListenerContainers() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractMessageListenerContainer container) {
+                    container.setAutoStartup(false);
+                } else if (bean instanceof AsyncRabbitTemplate template) {
+                    template.setAutoStartup(false); // RPC yanıt kuyruğu konteyneri
+                }
+                return bean;
+            }
+        };
+    }
+
+    public static long userOf(long cartId) {
+        return cartId % USERS + 1;
+    }
+
+    static CartSchema cart(Long cartId) {
+        SplittableRandom random = new SplittableRandom(cartId);
+        int size = 1 + random.nextInt(5);
+        List<ProductSchema> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductSchema(1L + random.nextInt(PRODUCTS), 1 + random.nextInt(3)));
+        }
+        CartSchema cart = new CartSchema();
+        cart.setId(cartId);
+        cart.setUserId(userOf(cartId));
+        cart.setProducts(products);
+        return cart;
+    }
+
+    private static void stub(InMemoryRabbitMQClient client, String queue, StubProfile defaults) {
+        StubProfile profile = StubProfile.of(queue, defaults);
+        client.respond(queue, message -> {
+            profile.apply(queue);
+            return null;
+        });
+    }
+}
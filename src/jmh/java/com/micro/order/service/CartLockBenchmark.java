@@ -0,0 +1,69 @@
+package com.micro.order.service;
+
+import com.micro.order.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sepet kilidinin maliyeti (4 iş parçacığı): her iş parçacığı kendi sepetinde (çekişmesiz, tryLock hızlı yolu),
+ * tüm iş parçacıkları tek bir sıcak sepette (çekişmeli) ve kilitsiz karşılaştırma. Kilit altındaki iş,
+ * sipariş oluşturmadaki kısa bellek içi adımları temsil eden sabit bir CPU yüküdür.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CartLockBenchmark {
+
+    private static final long HOT_CART_ID = 1L;
+    private static final int WORK_TOKENS = 100;
+
+    private final AtomicLong nextCartId = new AtomicLong(1000);
+    private CartLocks cartLocks;
+
+    @State(Scope.Thread)
+    public static class ThreadCart {
+        private List<Long> ownCart;
+        private final List<Long> hotCart = List.of(HOT_CART_ID);
+
+        @Setup
+        public void setUp(CartLockBenchmark benchmark) {
+            ownCart = List.of(benchmark.nextCartId.getAndIncrement());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        cartLocks = new CartLocks(1024, 5000, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void noLock() {
+        Blackhole.consumeCPU(WORK_TOKENS);
+    }
+
+    @Benchmark
+    public boolean distinctCarts(ThreadCart thread) {
+        return locked(thread.ownCart);
+    }
+
+    @Benchmark
+    public boolean hotCart(ThreadCart thread) {
+        return locked(thread.hotCart);
+    }
+
+    private boolean locked(List<Long> cartIds) {
+        try (CartLocks.Held held = cartLocks.lock(cartIds, Deadline.none())) {
+            Blackhole.consumeCPU(WORK_TOKENS);
+            return held.isLocked(cartIds.get(0));
+        }
+    }
+}
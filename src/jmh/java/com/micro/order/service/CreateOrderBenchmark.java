@@ -0,0 +1,101 @@
+package com.micro.order.service;
+
+import com.micro.order.OrderApplication;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.entity.Order;
+import com.micro.order.support.InMemoryRabbitMQClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uçtan uca createOrder: Spring bağlamı, gömülü H2 veritabanı ve broker yerine InMemoryRabbitMQClient ile.
+ * Sepet servisi her cartId için sabit içerikli bir sepet döner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private final AtomicLong cartIds = new AtomicLong();
+
+    // @Configuration değil: bileşen taramasına girip diğer benchmark/yük testi bağlamlarına karışmaz
+    static class InMemoryBrokerConfig {
+
+        @Bean
+        @Primary
+        public RabbitMQClient inMemoryRabbitMQClient() {
+            return new InMemoryRabbitMQClient()
+                    .respond("get_cart_request", message -> cart(((CartRequest) message).cartId()));
+        }
+
+        private static CartSchema cart(Long cartId) {
+            CartSchema cart = new CartSchema();
+            cart.setId(cartId);
+            cart.setUserId(101L);
+            cart.setProducts(List.of(new ProductSchema(201L, 2), new ProductSchema(202L, 1), new ProductSchema(203L, 4)));
+            return cart;
+        }
+
+        // Broker olmadığından dinleyici konteynerleri başlatılmaz
+        @Bean
+        public static BeanPostProcessor disableListenerContainers() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof AbstractMessageListenerContainer container) {
+                        container.setAutoStartup(false);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // Komut satırı argümanları application.properties'i ezer
+        context = new SpringApplicationBuilder(OrderApplication.class, InMemoryBrokerConfig.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:mem:order-bench;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.micro.order=WARN");
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(cartIds.incrementAndGet());
+        return orderService.createOrder(request);
+    }
+}
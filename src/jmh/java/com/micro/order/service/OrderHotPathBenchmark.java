@@ -0,0 +1,101 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.client.codec.MessageCodec;
+import com.micro.order.client.codec.MessageCodecRegistry;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.LogRequest;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.support.OrderServiceBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService'in CPU tarafındaki sıcak yolları: sepet yanıtını çözme (JSON ve Smile), ProductSchema -> OrderProduct eşleme,
+ * stok mesajı oluşturma ve LogRequest kodlama. Dış servis ve veritabanı çağrısı içermez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderHotPathBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int productCount;
+
+    private OrderService orderService;
+    private ObjectMapper objectMapper;
+    private MessageCodec jsonCodec;
+    private MessageCodec smileCodec;
+    private byte[] cartJson;
+    private byte[] cartSmile;
+    private LogRequest logRequest;
+    private CartSchema cart;
+    private CreateOrderRequest request;
+    private Order order;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        orderService = new OrderServiceBuilder().objectMapper(objectMapper).build();
+
+        List<ProductSchema> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add(new ProductSchema(1000L + i, 1 + i % 5));
+        }
+        cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(products);
+        MessageCodecRegistry codecs = new MessageCodecRegistry(objectMapper, MessageCodecRegistry.JSON);
+        jsonCodec = codecs.forContentType(MessageCodecRegistry.JSON);
+        smileCodec = codecs.forContentType(MessageCodecRegistry.SMILE);
+        cartJson = jsonCodec.encode(cart);
+        cartSmile = smileCodec.encode(cart);
+        logRequest = new LogRequest("order-service", "INFO", "Order created successfully for userId: 101, cartId: 1");
+
+        request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(1L);
+        order = orderService.buildOrder(request, cart);
+    }
+
+    @Benchmark
+    public CartSchema decodeCartJson() {
+        return jsonCodec.decode(cartJson, CartSchema.class);
+    }
+
+    @Benchmark
+    public CartSchema decodeCartSmile() {
+        return smileCodec.decode(cartSmile, CartSchema.class);
+    }
+
+    @Benchmark
+    public Order mapCartToOrder() {
+        return orderService.buildOrder(request, cart);
+    }
+
+    @Benchmark
+    public OutboxMessage buildStockMessage() {
+        return orderService.stockUpdate(order.getProducts(), StockDeltaAggregator.DECREASE_STOCK);
+    }
+
+    @Benchmark
+    public byte[] encodeLogRequestJson() {
+        return jsonCodec.encode(logRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeLogRequestSmile() {
+        return smileCodec.encode(logRequest);
+    }
+}
@@ -0,0 +1,110 @@
+package com.micro.order.client;
+
+/**
+ * Sayı tabanlı kayan pencereli devre kesici.
+ * Son windowSize çağrının hata oranı eşiği aşınca (en az minimumCalls çağrı sonrası) devre açılır ve
+ * openDuration boyunca çağrılar kuyruğa gitmeden reddedilir. Süre dolunca tek bir deneme çağrısına izin verilir:
+ * başarılıysa devre kapanır, başarısızsa yeniden açılır.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final boolean[] failures; // Son çağrıların sonuçları (true: hata)
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failureCount;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureRateThreshold, int windowSize, int minimumCalls, long openDurationMs) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.failures = new boolean[windowSize];
+    }
+
+    // Çağrıya izin verilip verilmediği; izin verilen her çağrı için onSuccess veya onFailure çağrılmalıdır
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    // Devre açıkken biten eski çağrıların sonuçları dikkate alınmaz
+    synchronized void onSuccess() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && failureCount * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == failures.length) {
+            if (failures[next]) {
+                failureCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failureCount = 0;
+        trialInFlight = false;
+    }
+}
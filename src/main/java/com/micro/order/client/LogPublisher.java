@@ -0,0 +1,165 @@
+package com.micro.order.client;
+
+import com.micro.order.dto.LogRequest;
+import com.micro.order.util.LogOverflowPolicy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * log_service_queue'ya bloklamadan log gönderir.
+ * Olaylar sınırlı bir halka tampona yazılır; arka plan iş parçacığı tamponu toplu halde
+ * fire-and-forget mesajlar olarak yayınlar.
+ */
+@Component
+public class LogPublisher {
+
+    public static final String LOG_QUEUE = "log_service_queue";
+    private static final String SERVICE_NAME = "order-service";
+
+    private final RabbitMQClient rabbitMQClient;
+    private final LogRingBuffer buffer;
+    private final LogOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long blockTimeoutMs;
+    private final int sampleRate;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public LogPublisher(RabbitMQClient rabbitMQClient,
+                        @Value("${order.log.buffer-size:8192}") int bufferSize,
+                        @Value("${order.log.batch-size:256}") int batchSize,
+                        @Value("${order.log.flush-interval-ms:200}") long flushIntervalMs,
+                        @Value("${order.log.overflow-policy:DROP}") LogOverflowPolicy overflowPolicy,
+                        @Value("${order.log.block-timeout-ms:50}") long blockTimeoutMs,
+                        @Value("${order.log.sample-rate:10}") int sampleRate) {
+        this.rabbitMQClient = rabbitMQClient;
+        this.buffer = new LogRingBuffer(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "order-log-publisher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Kapanışta tampondaki tüm logları gönder
+    @PreDestroy
+    public void stop() {
+        running = false;
+        buffer.wakeUp();
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Log olayını tampona ekle; çağıran iş parçacığı broker'ı beklemez
+    public void publish(String level, String message) {
+        boolean accepted = switch (overflowPolicy) {
+            case DROP -> buffer.offer(level, message);
+            case SAMPLE -> sampled() && buffer.offer(level, message);
+            case BLOCK -> offerBlocking(level, message);
+        };
+        if (!accepted) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    // Tampon yarıdan fazla doluysa yalnızca her sampleRate. olayı kabul et
+    private boolean sampled() {
+        if (buffer.size() < buffer.capacity() / 2) {
+            return true;
+        }
+        return sampleCounter.incrementAndGet() % sampleRate == 0;
+    }
+
+    private boolean offerBlocking(String level, String message) {
+        try {
+            return buffer.offer(level, message, blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        LogRingBuffer.LogEvent[] batch = new LogRingBuffer.LogEvent[batchSize];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new LogRingBuffer.LogEvent();
+        }
+        List<LogRequest> payloads = new ArrayList<>(batchSize);
+
+        while (running || buffer.size() > 0) {
+            try {
+                if (running && !buffer.awaitNotEmpty(flushIntervalMs, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            int n = buffer.drainTo(batch);
+            if (n > 0) {
+                flush(batch, n, payloads);
+            }
+        }
+    }
+
+    private void flush(LogRingBuffer.LogEvent[] batch, int n, List<LogRequest> payloads) {
+        payloads.clear();
+        for (int i = 0; i < n; i++) {
+            payloads.add(new LogRequest(SERVICE_NAME, batch[i].level, batch[i].message));
+        }
+        try {
+            rabbitMQClient.sendAll(LOG_QUEUE, payloads);
+            published.addAndGet(payloads.size());
+        } catch (Exception e) {
+            failed.addAndGet(payloads.size());
+            System.err.println("Failed to send " + payloads.size() + " logs to RabbitMQ: " + e.getMessage());
+        }
+    }
+}
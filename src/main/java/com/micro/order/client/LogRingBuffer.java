@@ -0,0 +1,147 @@
+package com.micro.order.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Önceden ayrılmış slotlardan oluşan sınırlı log tamponu.
+ * Yazarlar slotların alanlarını doldurur, okuyucu slot nesnelerini kendi dizisiyle takas eder;
+ * böylece olay başına nesne ayrılmaz.
+ */
+class LogRingBuffer {
+
+    // Tampondaki tek bir log olayı (slot olarak yeniden kullanılır)
+    static final class LogEvent {
+        String level;
+        String message;
+
+        void clear() {
+            level = null;
+            message = null;
+        }
+    }
+
+    private final LogEvent[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head; // Okunacak ilk slot
+    private int tail; // Yazılacak ilk slot
+    private int count;
+
+    LogRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Log buffer capacity must be positive: " + capacity);
+        }
+        slots = new LogEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+        }
+    }
+
+    // Yer varsa olayı ekler, yoksa false döner
+    boolean offer(String level, String message) {
+        lock.lock();
+        try {
+            if (count == slots.length) {
+                return false;
+            }
+            enqueue(level, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Yer açılana kadar en fazla timeout kadar bekler
+    boolean offer(String level, String message, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == slots.length) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(level, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Tampon boşsa en fazla timeout kadar olay gelmesini bekler
+    boolean awaitNotEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // En fazla out.length olayı out dizisine taşır; slotlar out dizisindeki boş nesnelerle takas edilir
+    int drainTo(LogEvent[] out) {
+        lock.lock();
+        try {
+            int n = Math.min(count, out.length);
+            for (int i = 0; i < n; i++) {
+                LogEvent event = slots[head];
+                LogEvent spare = out[i];
+                spare.clear();
+                slots[head] = spare;
+                out[i] = event;
+                head = (head + 1) % slots.length;
+            }
+            count -= n;
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bekleyen okuyucuyu uyandırır (ör. kapanış sırasında)
+    void wakeUp() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    private void enqueue(String level, String message) {
+        LogEvent event = slots[tail];
+        event.level = level;
+        event.message = message;
+        tail = (tail + 1) % slots.length;
+        count++;
+        notEmpty.signal();
+    }
+}
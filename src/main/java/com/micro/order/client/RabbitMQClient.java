@@ -1,17 +1,278 @@
 package com.micro.order.client;
 
+import com.micro.order.client.codec.MessageCodec;
+import com.micro.order.client.codec.MessageCodecRegistry;
+import com.micro.order.util.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.core.Address;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Kuyruklara tipli istek gönderir ve yanıtı istenen tipe çözer.
+ * Gövde, ara String oluşturulmadan seçili kodlayıcı ile doğrudan byte dizisine yazılır;
+ * yanıtın kodlayıcısı content-type başlığına göre seçilir.
+ * replyType olarak Void.class verilirse yanıt gövdesi okunmaz.
+ * RPC'ler kuyruk bazında korunur: zaman aşımı (isteğin deadline'ı ile sınırlanır), eşzamanlı çağrı sınırı (bulkhead)
+ * ve devre kesici. Reddedilen çağrılar RpcRejectedException ile hemen başarısız olur.
+ * Her kuyruk için süre (order.amqp.requests), zaman aşımı, boş yanıt ve reddetme metrikleri tutulur.
+ */
 @Component
 public class RabbitMQClient {
+    // Yanıt adresleri her istekte farklı olduğundan metrikler tek bir etiket altında toplanır
+    private static final String REPLY_METRICS_QUEUE = "reply-to";
+
     private final RabbitTemplate rabbitTemplate;
+    private final AsyncRabbitTemplate asyncRabbitTemplate;
+    private final MessageCodecRegistry codecs;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
 
-    public RabbitMQClient(RabbitTemplate rabbitTemplate) {
+    public RabbitMQClient(RabbitTemplate rabbitTemplate, AsyncRabbitTemplate asyncRabbitTemplate,
+                          MessageCodecRegistry codecs, MeterRegistry meterRegistry, Environment environment) {
         this.rabbitTemplate = rabbitTemplate;
+        this.asyncRabbitTemplate = asyncRabbitTemplate;
+        this.codecs = codecs;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    // Yanıt gelene (veya kuyruğun zaman aşımına) kadar bekler
+    public <T> T sendAndReceive(String queue, Object request, Class<T> replyType) {
+        return sendAndReceive(queue, request, replyType, Deadline.none());
+    }
+
+    // Bekleme süresi kuyruğun zaman aşımı ile deadline'a kalan sürenin küçüğüdür
+    public <T> T sendAndReceive(String queue, Object request, Class<T> replyType, Deadline deadline) {
+        try {
+            return sendAndReceiveAsync(queue, request, replyType, deadline).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    // Çağıran iş parçacığını bloklamadan gönder; yanıt geldiğinde future tamamlanır
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String queue, Object request, Class<T> replyType) {
+        return sendAndReceiveAsync(queue, request, replyType, Deadline.none());
+    }
+
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String queue, Object request, Class<T> replyType, Deadline deadline) {
+        Destination destination = destination(queue);
+        long timeoutMs = Math.min(destination.policy.timeoutMs(), deadline.remainingMillis());
+        if (timeoutMs <= 0) {
+            return CompletableFuture.failedFuture(destination.reject(RpcRejectedException.Reason.DEADLINE_EXCEEDED));
+        }
+        if (!destination.bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(destination.reject(RpcRejectedException.Reason.BULKHEAD_FULL));
+        }
+        if (!destination.circuitBreaker.tryAcquire()) {
+            destination.bulkhead.release();
+            return CompletableFuture.failedFuture(destination.reject(RpcRejectedException.Reason.CIRCUIT_OPEN));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Message> exchange;
+        try {
+            Message message = toMessage(request, codecs.defaultCodec());
+            // Süresi dolan istek karşı serviste işlenmeden kuyruktan düşer
+            message.getMessageProperties().setExpiration(Long.toString(timeoutMs));
+            exchange = exchange(queue, message);
+        } catch (RuntimeException e) {
+            destination.complete(start, null, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return exchange.copy()
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((reply, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        // Bekleyen yanıt kaydını hemen bırak
+                        exchange.cancel(true);
+                        cause = new AmqpReplyTimeoutException("Reply from " + queue + " timed out after " + timeoutMs + " ms", null);
+                    }
+                    destination.complete(start, reply, cause);
+                    if (cause != null) {
+                        throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                    }
+                    return fromMessage(reply, replyType);
+                });
+    }
+
+    // Yanıt beklemeden gönder (fire-and-forget)
+    public void send(String queue, Object message) {
+        Destination destination = destination(queue);
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.send(queue, toMessage(message, codecs.defaultCodec()));
+            destination.send.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            destination.sendError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    // Mesajları tek bir kanal üzerinden art arda gönder; süre tüm batch için ölçülür
+    public void sendAll(String queue, List<?> messages) {
+        Destination destination = destination(queue);
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Object message : messages) {
+                    operations.send(queue, toMessage(message, codecs.defaultCodec()));
+                }
+                return null;
+            });
+            destination.send.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            destination.sendError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
     }
 
-    public String sendAndReceive(String queue, String message) {
-        return (String) rabbitTemplate.convertSendAndReceive(queue, message);
+    // Gelen isteğin reply-to adresine (ör. direct reply-to) aynı correlation id ve content-type ile yanıt gönder
+    public void reply(Message request, Object payload) {
+        MessageProperties requestProperties = request.getMessageProperties();
+        if (requestProperties.getReplyTo() == null) {
+            return;
+        }
+        Destination destination = destination(REPLY_METRICS_QUEUE);
+        long start = System.nanoTime();
+        try {
+            Message reply = toMessage(payload, codecs.forContentType(requestProperties.getContentType()));
+            reply.getMessageProperties().setCorrelationId(requestProperties.getCorrelationId());
+            Address address = new Address(requestProperties.getReplyTo());
+            rabbitTemplate.send(address.getExchangeName(), address.getRoutingKey(), reply);
+            destination.send.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            destination.sendError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    // Yanıtı ortak yanıt kuyruğunda correlation id ile eşleştirerek bekle (testlerde yerine başka kaynak konabilir)
+    CompletableFuture<Message> exchange(String queue, Message request) {
+        return asyncRabbitTemplate.sendAndReceive(queue, request);
+    }
+
+    private Message toMessage(Object payload, MessageCodec codec) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(codec.contentType());
+        return new Message(codec.encode(payload), properties);
+    }
+
+    private <T> T fromMessage(Message reply, Class<T> replyType) {
+        if (reply == null || replyType == Void.class) {
+            return null;
+        }
+        return codecs.forContentType(reply.getMessageProperties().getContentType())
+                .decode(reply.getBody(), replyType);
+    }
+
+    // Kuyruk durumu ilk kullanımda bir kez oluşturulur; sıcak yolda yalnızca map okuması yapılır
+    private Destination destination(String queue) {
+        Destination destination = destinations.get(queue);
+        return destination != null ? destination
+                : destinations.computeIfAbsent(queue, key -> new Destination(key, RpcPolicy.resolve(environment, key), meterRegistry));
+    }
+
+    private static final class Destination {
+        private final String queue;
+        private final RpcPolicy policy;
+        private final Semaphore bulkhead;
+        private final CircuitBreaker circuitBreaker;
+        private final Timer rpcSuccess;
+        private final Timer rpcTimeout;
+        private final Timer rpcError;
+        private final Timer send;
+        private final Timer sendError;
+        private final Counter timeouts;
+        private final Counter nullReplies;
+        private final Map<RpcRejectedException.Reason, Counter> rejections = new EnumMap<>(RpcRejectedException.Reason.class);
+
+        Destination(String queue, RpcPolicy policy, MeterRegistry registry) {
+            this.queue = queue;
+            this.policy = policy;
+            this.bulkhead = new Semaphore(policy.maxConcurrent());
+            this.circuitBreaker = new CircuitBreaker(policy.failureRateThreshold(), policy.windowSize(),
+                    policy.minimumCalls(), policy.openDurationMs());
+            this.rpcSuccess = timer(registry, queue, "rpc", "success");
+            this.rpcTimeout = timer(registry, queue, "rpc", "timeout");
+            this.rpcError = timer(registry, queue, "rpc", "error");
+            this.send = timer(registry, queue, "send", "success");
+            this.sendError = timer(registry, queue, "send", "error");
+            this.timeouts = Counter.builder("order.amqp.timeouts")
+                    .description("RPC calls that got no reply within the queue timeout or request deadline")
+                    .tag("queue", queue)
+                    .register(registry);
+            this.nullReplies = Counter.builder("order.amqp.null.replies")
+                    .description("RPC replies with an empty body")
+                    .tag("queue", queue)
+                    .register(registry);
+            for (RpcRejectedException.Reason reason : RpcRejectedException.Reason.values()) {
+                rejections.put(reason, Counter.builder("order.rpc.rejected")
+                        .description("RPC calls rejected before being sent")
+                        .tags("queue", queue, "reason", reason.name().toLowerCase())
+                        .register(registry));
+            }
+            Gauge.builder("order.rpc.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("0 = closed, 1 = open, 2 = half-open")
+                    .tag("queue", queue)
+                    .register(registry);
+            Gauge.builder("order.rpc.bulkhead.in.flight", bulkhead, permits -> policy.maxConcurrent() - permits.availablePermits())
+                    .tag("queue", queue)
+                    .register(registry);
+        }
+
+        RpcRejectedException reject(RpcRejectedException.Reason reason) {
+            rejections.get(reason).increment();
+            return new RpcRejectedException(queue, reason);
+        }
+
+        // Çağrının sonucunu metriklere ve devre kesiciye işle, bulkhead iznini bırak
+        void complete(long start, Message reply, Throwable error) {
+            bulkhead.release();
+            long elapsed = System.nanoTime() - start;
+            if (error instanceof AmqpReplyTimeoutException) {
+                rpcTimeout.record(elapsed, TimeUnit.NANOSECONDS);
+                timeouts.increment();
+                circuitBreaker.onFailure();
+            } else if (error != null) {
+                rpcError.record(elapsed, TimeUnit.NANOSECONDS);
+                circuitBreaker.onFailure();
+            } else {
+                rpcSuccess.record(elapsed, TimeUnit.NANOSECONDS);
+                circuitBreaker.onSuccess();
+                if (reply == null || reply.getBody() == null || reply.getBody().length == 0) {
+                    nullReplies.increment();
+                }
+            }
+        }
+
+        private static Timer timer(MeterRegistry registry, String queue, String type, String outcome) {
+            return Timer.builder("order.amqp.requests")
+                    .description("Round trip (rpc) or publish (send) time per queue")
+                    .tags("queue", queue, "type", type, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
     }
 }
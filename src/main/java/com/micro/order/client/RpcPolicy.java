@@ -0,0 +1,30 @@
+package com.micro.order.client;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Bir kuyruğa yapılan RPC'lerin zaman aşımı, eşzamanlılık sınırı (bulkhead) ve devre kesici ayarları.
+ * Değerler order.rpc.queues.&lt;kuyruk&gt;.* altından, yoksa order.rpc.default.* altından okunur.
+ */
+record RpcPolicy(long timeoutMs,
+                 int maxConcurrent,
+                 int failureRateThreshold,
+                 int windowSize,
+                 int minimumCalls,
+                 long openDurationMs) {
+
+    static RpcPolicy resolve(Environment environment, String queue) {
+        return new RpcPolicy(
+                property(environment, queue, "timeout-ms", Long.class, 5000L),
+                property(environment, queue, "max-concurrent", Integer.class, 64),
+                property(environment, queue, "failure-rate-threshold", Integer.class, 50),
+                property(environment, queue, "window-size", Integer.class, 20),
+                property(environment, queue, "minimum-calls", Integer.class, 10),
+                property(environment, queue, "open-duration-ms", Long.class, 5000L));
+    }
+
+    private static <T> T property(Environment environment, String queue, String name, Class<T> type, T fallback) {
+        T defaultValue = environment.getProperty("order.rpc.default." + name, type, fallback);
+        return environment.getProperty("order.rpc.queues." + queue + "." + name, type, defaultValue);
+    }
+}
@@ -0,0 +1,26 @@
+package com.micro.order.client;
+
+// RPC kuyruğa hiç gönderilmeden reddedildiğinde fırlatılır
+public class RpcRejectedException extends RuntimeException {
+
+    public enum Reason {
+        CIRCUIT_OPEN, BULKHEAD_FULL, DEADLINE_EXCEEDED
+    }
+
+    private final String queue;
+    private final Reason reason;
+
+    public RpcRejectedException(String queue, Reason reason) {
+        super("RPC to " + queue + " rejected: " + reason.name().toLowerCase());
+        this.queue = queue;
+        this.reason = reason;
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
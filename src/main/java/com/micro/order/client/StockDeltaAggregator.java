@@ -0,0 +1,181 @@
+package com.micro.order.client;
+
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.dto.StockUpdateMessage;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.LongIntHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Birçok siparişin stok değişikliklerini ürün bazında birleştirip product_service_queue'ya toplu gönderir.
+ * Kısa bir pencere boyunca (veya farklı ürün sayısı eşiğe ulaşana kadar) gelen değişiklikler yön bazında
+ * (azaltma/artırma) toplanır; her flush'ta en fazla bir decrease_stock ve bir increase_stock mesajı gider.
+ * Yönler birbirinden düşülmez: her siparişin değişikliği yalnızca kendi yönünün mesajında taşınır ve future'ı
+ * yalnızca o mesajın onayıyla tamamlanır. Böylece bir yön başarısız olduğunda diğer yönde uygulanmış
+ * değişiklikler yeniden gönderilmez.
+ */
+@Component
+public class StockDeltaAggregator {
+
+    public static final String PRODUCT_QUEUE = "product_service_queue";
+    public static final String DECREASE_STOCK = "decrease_stock";
+    public static final String INCREASE_STOCK = "increase_stock";
+
+    private final RabbitMQClient rabbitMQClient;
+    private final long windowMs;
+    private final int maxProducts;
+
+    private final Object lock = new Object();
+    private final Direction decreases;
+    private final Direction increases;
+
+    private final AtomicLong submittedOrders = new AtomicLong();
+    private final AtomicLong publishedMessages = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public StockDeltaAggregator(RabbitMQClient rabbitMQClient,
+                                @Value("${order.stock.aggregation.window-ms:20}") long windowMs,
+                                @Value("${order.stock.aggregation.max-products:500}") int maxProducts) {
+        this.rabbitMQClient = rabbitMQClient;
+        this.windowMs = windowMs;
+        this.maxProducts = maxProducts;
+        this.decreases = new Direction(DECREASE_STOCK, maxProducts);
+        this.increases = new Direction(INCREASE_STOCK, maxProducts);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (windowMs > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-stock-aggregator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Kapanışta bekleyen değişiklikleri gönder
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    // Siparişin stok değişikliğini sıradaki pencereye ekle. Liste kilit alınmadan doğrulanır: geçersiz bir kalem
+    // varsa hiçbir kalem eklenmez (yarım eklenen değişiklik bekleyen olmadan yayınlanır, yeniden denemede tekrarlanırdı)
+    public CompletableFuture<Void> submit(List<OrderProduct> products, String action) {
+        Direction direction = switch (action) {
+            case DECREASE_STOCK -> decreases;
+            case INCREASE_STOCK -> increases;
+            default -> throw new IllegalArgumentException("Unknown stock action: " + action);
+        };
+        for (OrderProduct product : products) {
+            if (product.getProductId() == null || product.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid stock update item, productId: " + product.getProductId()
+                        + ", quantity: " + product.getQuantity());
+            }
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        boolean flushNow;
+        synchronized (lock) {
+            for (OrderProduct product : products) {
+                direction.amounts.addTo(product.getProductId(), product.getQuantity());
+            }
+            direction.waiters.add(future);
+            flushNow = windowMs <= 0 || direction.amounts.size() >= maxProducts;
+        }
+        submittedOrders.incrementAndGet();
+        if (flushNow) {
+            flush();
+        }
+        return future;
+    }
+
+    // Biriken değişiklikleri yayınla ve bekleyen siparişleri kendi yönlerinin onayına bağla
+    public void flush() {
+        List<CompletableFuture<Void>> decreaseWaiters;
+        List<CompletableFuture<Void>> increaseWaiters;
+        StockUpdateMessage decreaseMessage;
+        StockUpdateMessage increaseMessage;
+        synchronized (lock) {
+            decreaseWaiters = decreases.waiters;
+            increaseWaiters = increases.waiters;
+            decreaseMessage = decreases.drain();
+            increaseMessage = increases.drain();
+        }
+        publish(decreaseMessage, decreaseWaiters);
+        publish(increaseMessage, increaseWaiters);
+    }
+
+    public long getSubmittedOrderCount() {
+        return submittedOrders.get();
+    }
+
+    public long getPublishedMessageCount() {
+        return publishedMessages.get();
+    }
+
+    private void publish(StockUpdateMessage message, List<CompletableFuture<Void>> waiters) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Void> ack;
+        if (message == null) {
+            ack = CompletableFuture.completedFuture(null); // Yalnızca boş ürün listeleri
+        } else {
+            try {
+                ack = rabbitMQClient.sendAndReceiveAsync(PRODUCT_QUEUE, message, Void.class);
+            } catch (RuntimeException e) {
+                ack = CompletableFuture.failedFuture(e);
+            }
+            publishedMessages.incrementAndGet();
+        }
+        ack.whenComplete((ignored, error) -> {
+            for (CompletableFuture<Void> waiter : waiters) {
+                if (error != null) {
+                    waiter.completeExceptionally(error);
+                } else {
+                    waiter.complete(null);
+                }
+            }
+        });
+    }
+
+    // Tek yönün (azaltma veya artırma) biriken miktarları ve bekleyen siparişleri; lock altında kullanılır
+    private static final class Direction {
+
+        private final String action;
+        private final LongIntHashMap amounts; // productId -> toplam miktar
+        private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+        private Direction(String action, int capacity) {
+            this.action = action;
+            this.amounts = new LongIntHashMap(capacity);
+        }
+
+        // Biriken miktarlardan mesaj oluştur ve pencereyi sıfırla; miktar yoksa null (miktarlar submit'te pozitif
+        // olarak doğrulanır)
+        private StockUpdateMessage drain() {
+            List<ProductSchema> products = new ArrayList<>(amounts.size());
+            amounts.forEach((productId, amount) -> products.add(new ProductSchema(productId, amount)));
+            amounts.clear();
+            waiters = new ArrayList<>();
+            return products.isEmpty() ? null : new StockUpdateMessage(action, products);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.micro.order.client.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+/**
+ * Jackson tabanlı kodlayıcı. Nesneler ara String oluşturulmadan, Jackson'ın geri dönüştürülen
+ * tamponları üzerinden doğrudan byte dizisine yazılır. Aynı sınıf JSON ve Smile (ikili JSON) için kullanılır.
+ */
+public class JacksonMessageCodec implements MessageCodec {
+
+    private final String contentType;
+    private final ObjectMapper objectMapper;
+
+    public JacksonMessageCodec(String contentType, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] encode(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            throw new MessageConversionException("Failed to encode " + contentType + " message", e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] body, Class<T> type) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (Exception e) {
+            throw new MessageConversionException("Failed to decode " + contentType + " message as " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.micro.order.client.codec;
+
+/**
+ * Kuyruk mesajlarının gövdesini doğrudan byte dizisine yazan/okuyan kodlayıcı.
+ * Hangi kodlayıcının kullanılacağı AMQP content-type başlığına göre seçilir.
+ * Hatalar MessageConversionException olarak fırlatılır.
+ */
+public interface MessageCodec {
+
+    String contentType();
+
+    byte[] encode(Object payload);
+
+    // Gövde boşsa null döner
+    <T> T decode(byte[] body, Class<T> type);
+}
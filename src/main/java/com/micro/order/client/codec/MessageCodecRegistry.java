@@ -0,0 +1,46 @@
+package com.micro.order.client.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Desteklenen kodlayıcılar: application/json (varsayılan, mevcut servislerle uyumlu) ve
+ * application/x-jackson-smile (kompakt ikili). Giden mesajlar order.rabbitmq.content-type ile,
+ * gelen yanıtlar kendi content-type başlıklarıyla çözülür.
+ */
+@Component
+public class MessageCodecRegistry {
+
+    public static final String JSON = "application/json";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private final Map<String, MessageCodec> codecs;
+    private final MessageCodec defaultCodec;
+
+    public MessageCodecRegistry(ObjectMapper objectMapper,
+                                @Value("${order.rabbitmq.content-type:" + JSON + "}") String contentType) {
+        MessageCodec json = new JacksonMessageCodec(JSON, objectMapper);
+        MessageCodec smile = new JacksonMessageCodec(SMILE, objectMapper.copyWith(new SmileFactory()));
+        this.codecs = Map.of(JSON, json, SMILE, smile);
+        this.defaultCodec = forContentType(contentType);
+    }
+
+    // Giden mesajlar için yapılandırılmış kodlayıcı
+    public MessageCodec defaultCodec() {
+        return defaultCodec;
+    }
+
+    // Bilinmeyen veya boş content-type için JSON kullanılır
+    public MessageCodec forContentType(String contentType) {
+        if (contentType == null) {
+            return codecs.get(JSON);
+        }
+        int separator = contentType.indexOf(';');
+        String mediaType = (separator >= 0 ? contentType.substring(0, separator) : contentType).trim();
+        return codecs.getOrDefault(mediaType, codecs.get(JSON));
+    }
+}
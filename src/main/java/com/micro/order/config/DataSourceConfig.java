@@ -0,0 +1,78 @@
+package com.micro.order.config;
+
+import com.micro.order.util.ReadReplica;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Okuma/yazma ayrımı: iki ayrı Hikari havuzu ve aralarında seçim yapan yönlendirici DataSource.
+ * Birincil havuz (spring.datasource.*) yazmalara ve yazma yollarındaki okumalara, okuma havuzu
+ * (order.datasource.replica.*) ReadReplica ile işaretlenen okumalara hizmet eder. Replika adresi verilmezse okuma
+ * havuzu birincil veritabanına açılır; yoğun listeleme yine de sipariş oluşturmanın bağlantılarını tüketmez.
+ * Havuz metrikleri Spring Boot tarafından hikaricp.* altında pool etiketiyle (order-primary, order-replica) yayınlanır.
+ * Read-your-writes: bir örnek kendi yazdığı sipariş ve kullanıcıları süre boyunca birincilden okur (OrderCache).
+ * Yazma başka bir örnekte yapıldıysa bunu yalnızca istemcinin geri gönderdiği Last-Write-At başlığı bildirir;
+ * başlığı göndermeyen istemci başka bir örnekte gecikmeli replikadan okuyabilir.
+ * Bean'ler koşulsuzdur: ayarlar çalışma anında okunur, AOT'li derlemede de değiştirilebilir.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("order-primary");
+        return dataSource;
+    }
+
+    // Kullanıcı adı ve şifre verilmezse birincilinkiler kullanılır; bağlantılar salt okunurdur
+    @Bean
+    @ConfigurationProperties("order.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${order.datasource.replica.url:}") String url,
+                                              @Value("${order.datasource.replica.username:}") String username,
+                                              @Value("${order.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(url)) {
+            dataSource.setJdbcUrl(url);
+        }
+        if (StringUtils.hasText(username)) {
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+        }
+        dataSource.setPoolName("order-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // JPA, JdbcTemplate ve Flyway bu DataSource'u kullanır; işaret yoksa (migration'lar dahil) birincil seçilir
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return ReadReplica.isActive() ? REPLICA : PRIMARY;
+            }
+        };
+        routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+}
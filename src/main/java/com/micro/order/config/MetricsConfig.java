@@ -0,0 +1,91 @@
+package com.micro.order.config;
+
+import com.micro.order.client.LogPublisher;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.controller.OrderCommandListener;
+import com.micro.order.service.OrderArchiver;
+import com.micro.order.service.OrderChangeFeed;
+import com.micro.order.service.OrderCache;
+import com.micro.order.service.OutboxRelay;
+import com.micro.order.util.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bileşenlerin mevcut sayaçlarını metrik olarak yayınlar.
+ * Değerler yalnızca scrape sırasında okunur; sıcak yola ek maliyet getirmez.
+ * Hikari havuzu (hikaricp.*) ve RabbitMQ bağlantı/kanal (rabbitmq.*) metrikleri Spring Boot tarafından bağlanır.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder logPublisherMetrics(LogPublisher logPublisher) {
+        return registry -> {
+            Gauge.builder("order.log.queue.depth", logPublisher, LogPublisher::getQueueDepth).register(registry);
+            Gauge.builder("order.log.queue.capacity", logPublisher, LogPublisher::getCapacity).register(registry);
+            FunctionCounter.builder("order.log.published", logPublisher, LogPublisher::getPublishedCount).register(registry);
+            FunctionCounter.builder("order.log.dropped", logPublisher, LogPublisher::getDroppedCount).register(registry);
+            FunctionCounter.builder("order.log.failed", logPublisher, LogPublisher::getFailedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder stockAggregatorMetrics(StockDeltaAggregator aggregator) {
+        return registry -> {
+            FunctionCounter.builder("order.stock.submitted.orders", aggregator,
+                    StockDeltaAggregator::getSubmittedOrderCount).register(registry);
+            FunctionCounter.builder("order.stock.published.messages", aggregator,
+                    StockDeltaAggregator::getPublishedMessageCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder outboxMetrics(OutboxRelay outboxRelay) {
+        return registry -> {
+            Gauge.builder("order.outbox.lag", outboxRelay, OutboxRelay::getLagMillis)
+                    .baseUnit("milliseconds").register(registry);
+            Gauge.builder("order.outbox.last.batch.size", outboxRelay, OutboxRelay::getLastBatchSize).register(registry);
+            FunctionCounter.builder("order.outbox.dead.lettered", outboxRelay, OutboxRelay::getDeadLetteredCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder commandListenerMetrics(OrderCommandListener listener) {
+        return registry -> FunctionCounter.builder("order.command.reply.failures", listener,
+                OrderCommandListener::getFailedReplyCount).register(registry);
+    }
+
+    @Bean
+    public MeterBinder orderArchiverMetrics(OrderArchiver orderArchiver) {
+        return registry -> FunctionCounter.builder("order.archive.archived.orders", orderArchiver,
+                OrderArchiver::getArchivedOrderCount).register(registry);
+    }
+
+    @Bean
+    public MeterBinder orderChangeFeedMetrics(OrderChangeFeed orderChangeFeed) {
+        return registry -> {
+            Gauge.builder("order.feed.high.water", orderChangeFeed, OrderChangeFeed::getHighWater).register(registry);
+            Gauge.builder("order.feed.waiters", orderChangeFeed, OrderChangeFeed::getWaiterCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder orderCacheMetrics(OrderCache orderCache) {
+        return registry -> {
+            bindCache(registry, "orders", orderCache.getOrderCache());
+            bindCache(registry, "user-orders", orderCache.getUserOrdersCache());
+        };
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, BoundedCache<?, ?> cache) {
+        Gauge.builder("order.cache.size", cache, BoundedCache::size).tag("cache", name).register(registry);
+        FunctionCounter.builder("order.cache.hits", cache, BoundedCache::getHitCount).tag("cache", name).register(registry);
+        FunctionCounter.builder("order.cache.misses", cache, BoundedCache::getMissCount).tag("cache", name).register(registry);
+        FunctionCounter.builder("order.cache.evictions", cache, BoundedCache::getEvictionCount).tag("cache", name).register(registry);
+    }
+}
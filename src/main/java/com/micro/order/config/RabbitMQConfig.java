@@ -1,10 +1,16 @@
 package com.micro.order.config;
 
+import com.micro.order.controller.OrderCommandListener;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,13 +24,64 @@ public class RabbitMQConfig {
         return rabbitTemplate;
     }
 
+    // Bu örneğe ait RPC yanıt kuyruğu; bağlantı kapanınca silinir
+    @Bean
+    public Queue rpcReplyQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("order.rpc.reply."));
+    }
+
+    // Tüm RPC'ler tek bir yanıt kuyruğu ve uzun ömürlü tüketici üzerinden çoklanır.
+    // İstekler kısa süreliğine ödünç alınan önbellekteki kanallardan yayınlanır; bekleyen yanıtlar
+    // correlation id -> future tablosunda tutulur. Böylece eşzamanlı istek sayısı arttıkça kanal ve
+    // tüketici sayısı sabit kalır (direct reply-to'da bekleyen her istek bir kanalı meşgul eder).
+    @Bean
+    public AsyncRabbitTemplate asyncRabbitTemplate(RabbitTemplate rabbitTemplate,
+                                                   ConnectionFactory connectionFactory,
+                                                   Queue rpcReplyQueue,
+                                                   @Value("${order.rabbitmq.reply-timeout-ms:5000}") long replyTimeoutMs,
+                                                   @Value("${order.rabbitmq.reply-consumers:1}") int replyConsumers,
+                                                   @Value("${order.rabbitmq.reply-prefetch:250}") int replyPrefetch) {
+        SimpleMessageListenerContainer replyContainer = new SimpleMessageListenerContainer(connectionFactory);
+        replyContainer.setQueues(rpcReplyQueue);
+        replyContainer.setConcurrentConsumers(replyConsumers);
+        replyContainer.setPrefetchCount(replyPrefetch);
+        AsyncRabbitTemplate asyncRabbitTemplate = new AsyncRabbitTemplate(rabbitTemplate, replyContainer, rpcReplyQueue.getName());
+        asyncRabbitTemplate.setReceiveTimeout(replyTimeoutMs);
+        return asyncRabbitTemplate;
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    // Sipariş komutları (create_order / cancel_order) için giriş kuyruğu
+    @Bean
+    public Queue orderIntakeQueue(@Value("${order.intake.queue:order_service_queue}") String queueName) {
+        return new Queue(queueName, true);
+    }
+
+    // Giriş kuyruğunu batch halinde tüketen dinleyici. Eşzamanlı tüketici sayısı yük arttıkça
+    // max-concurrency'ye kadar büyür; prefetch, tüketici başına onaylanmamış mesaj sınırıdır (backpressure).
+    // Bir batch, batch-size mesaj dolduğunda veya batch-timeout-ms boyunca yeni mesaj gelmediğinde işlenir.
     @Bean
-    public SimpleMessageListenerContainer messageListenerContainer(ConnectionFactory connectionFactory) {
-        return new SimpleMessageListenerContainer(connectionFactory);
+    public SimpleMessageListenerContainer orderIntakeContainer(ConnectionFactory connectionFactory,
+                                                               Queue orderIntakeQueue,
+                                                               OrderCommandListener orderCommandListener,
+                                                               @Value("${order.intake.concurrency:2}") int concurrency,
+                                                               @Value("${order.intake.max-concurrency:8}") int maxConcurrency,
+                                                               @Value("${order.intake.prefetch:100}") int prefetch,
+                                                               @Value("${order.intake.batch-size:50}") int batchSize,
+                                                               @Value("${order.intake.batch-timeout-ms:20}") long batchTimeoutMs) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueues(orderIntakeQueue);
+        container.setConcurrentConsumers(concurrency);
+        container.setMaxConcurrentConsumers(maxConcurrency);
+        container.setPrefetchCount(Math.max(prefetch, batchSize));
+        container.setConsumerBatchEnabled(true);
+        container.setBatchSize(batchSize);
+        container.setReceiveTimeout(batchTimeoutMs);
+        container.setMessageListener(orderCommandListener);
+        return container;
     }
 }
@@ -0,0 +1,45 @@
+package com.micro.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Hızlı başlangıç ayarları (prod profili ve fast-startup Maven profili, bkz. application-prod.properties).
+ * spring.main.lazy-initialization açıkken bean'ler ilk kullanımda oluşturulur; arka plan işi yapan bean'ler
+ * ve migration'lar yine açılışta çalışmalıdır.
+ */
+@Configuration
+public class StartupConfig {
+
+    // @Scheduled metotları yalnızca oluşturulmuş bean'ler için kaydedilir; outbox relay, değişiklik akışı,
+    // partition ve arşiv işleri ilk isteği beklemeden başlamalı. Migration'lar da ilk sorguya kalmasın.
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (FlywayMigrationInitializer.class.isAssignableFrom(beanType) || hasScheduledMethods(beanType));
+    }
+
+    // AOT ile spring.flyway.enabled derleme anında sabitlenir; migration'ları çalışma anında atlamak için
+    // (CDS eğitim çalıştırması veritabanı olmadan yapılır) ayrı bir ayar kullanılır
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${order.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.micro.order.controller;
+
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.codec.MessageCodecRegistry;
+import com.micro.order.dto.BatchOrderResult;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.OrderCommand;
+import com.micro.order.dto.OrderCommandReply;
+import com.micro.order.entity.Order;
+import com.micro.order.service.IdempotencyStore;
+import com.micro.order.service.OrderService;
+import com.micro.order.util.PaymentStatus;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * order_service_queue üzerinden gelen sipariş komutlarını toplu işler (HTTP uçlarının mesaj karşılığı).
+ * Bir batch'teki create_order komutları tek createOrders çağrısıyla (tek transaction, toplu insert),
+ * cancel_order komutları tek toplu iptal ile uygulanır. Idempotency-Key taşıyan komutlar tek tek işlenir.
+ * idempotency_key taşımayan create_order komutlarında AMQP message id'si örtük anahtar olur: ilk teslimde sipariş ile
+ * birlikte kaydedilir, yeniden teslim edilen (redelivered) mesaj anahtarla işlenip kayıtlı siparişi döner.
+ * Her mesaja reply-to adresi varsa kendi sonucu ile yanıt verilir; hatalı bir komut veya gönderilemeyen bir yanıt
+ * batch'in geri kalanını etkilemez ve batch'i yeniden kuyruğa düşürmez.
+ */
+@Component
+public class OrderCommandListener implements BatchMessageListener {
+
+    private static final String MESSAGE_ID_KEY_PREFIX = "amqp:";
+
+    private final OrderService orderService;
+    private final RabbitMQClient rabbitMQClient;
+    private final MessageCodecRegistry codecs;
+    private final AtomicLong failedReplies = new AtomicLong();
+
+    public OrderCommandListener(OrderService orderService, RabbitMQClient rabbitMQClient, MessageCodecRegistry codecs) {
+        this.orderService = orderService;
+        this.rabbitMQClient = rabbitMQClient;
+        this.codecs = codecs;
+    }
+
+    @Override
+    public void onMessageBatch(List<Message> messages) {
+        OrderCommandReply[] replies = new OrderCommandReply[messages.size()];
+        List<Integer> createIndexes = new ArrayList<>();
+        List<CreateOrderRequest> creates = new ArrayList<>();
+        List<String> createKeys = new ArrayList<>();
+        List<Integer> cancelIndexes = new ArrayList<>();
+        List<Long> cancels = new ArrayList<>();
+
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                OrderCommand command = decode(messages.get(i));
+                MessageProperties properties = messages.get(i).getMessageProperties();
+                String implicitKey = messageIdKey(properties);
+                if (OrderCommand.CREATE_ORDER.equals(command.action()) && command.idempotencyKey() != null) {
+                    Order order = orderService.createOrder(command.toCreateRequest(), command.idempotencyKey());
+                    replies[i] = new OrderCommandReply(order.getId(), order.getPaymentStatus(), null);
+                } else if (OrderCommand.CREATE_ORDER.equals(command.action()) && implicitKey != null
+                        && Boolean.TRUE.equals(properties.getRedelivered())) {
+                    // Önceki teslim sipariş oluşturmuş olabilir; anahtarla işlenir
+                    Order order = orderService.createOrder(command.toCreateRequest(), implicitKey);
+                    replies[i] = new OrderCommandReply(order.getId(), order.getPaymentStatus(), null);
+                } else if (OrderCommand.CREATE_ORDER.equals(command.action())) {
+                    createIndexes.add(i);
+                    creates.add(command.toCreateRequest());
+                    createKeys.add(implicitKey);
+                } else if (OrderCommand.CANCEL_ORDER.equals(command.action()) && command.orderId() != null) {
+                    cancelIndexes.add(i);
+                    cancels.add(command.orderId());
+                } else {
+                    replies[i] = OrderCommandReply.failed("Unsupported order command: " + command.action());
+                }
+            } catch (RuntimeException e) {
+                replies[i] = OrderCommandReply.failed(e.getMessage());
+            }
+        }
+
+        if (!creates.isEmpty()) {
+            applyCreates(creates, createKeys, createIndexes, replies);
+        }
+        if (!cancels.isEmpty()) {
+            applyCancels(cancels, cancelIndexes, replies);
+        }
+        // Komutlar uygulandı; gönderilemeyen yanıt batch'i yeniden kuyruğa düşürüp komutları tekrar çalıştırmasın
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                rabbitMQClient.reply(messages.get(i), replies[i]);
+            } catch (RuntimeException e) {
+                failedReplies.incrementAndGet();
+            }
+        }
+    }
+
+    // Gönderilemeyen yanıt sayısı
+    public long getFailedReplyCount() {
+        return failedReplies.get();
+    }
+
+    private void applyCreates(List<CreateOrderRequest> creates, List<String> keys, List<Integer> indexes,
+                              OrderCommandReply[] replies) {
+        try {
+            List<BatchOrderResult> results = orderService.createOrders(creates, keys);
+            for (BatchOrderResult result : results) {
+                replies[indexes.get(result.index())] =
+                        new OrderCommandReply(result.orderId(), result.paymentStatus(), result.error());
+            }
+        } catch (RuntimeException e) {
+            indexes.forEach(index -> replies[index] = OrderCommandReply.failed(e.getMessage()));
+        }
+    }
+
+    private void applyCancels(List<Long> orderIds, List<Integer> indexes, OrderCommandReply[] replies) {
+        try {
+            Set<Long> canceled = orderService.cancelOrdersById(orderIds);
+            for (int j = 0; j < orderIds.size(); j++) {
+                Long orderId = orderIds.get(j);
+                replies[indexes.get(j)] = canceled.contains(orderId)
+                        ? new OrderCommandReply(orderId, PaymentStatus.CANCELED, null)
+                        : OrderCommandReply.failed("Order not found or already canceled: " + orderId);
+            }
+        } catch (RuntimeException e) {
+            indexes.forEach(index -> replies[index] = OrderCommandReply.failed(e.getMessage()));
+        }
+    }
+
+    // Mesajın AMQP message id'sinden örtük Idempotency-Key; id yoksa veya anahtar sınırını aşıyorsa null
+    private static String messageIdKey(MessageProperties properties) {
+        String messageId = properties.getMessageId();
+        if (messageId == null || messageId.isBlank()
+                || MESSAGE_ID_KEY_PREFIX.length() + messageId.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return null;
+        }
+        return MESSAGE_ID_KEY_PREFIX + messageId;
+    }
+
+    private OrderCommand decode(Message message) {
+        OrderCommand command = codecs.forContentType(message.getMessageProperties().getContentType())
+                .decode(message.getBody(), OrderCommand.class);
+        if (command == null) {
+            throw new IllegalArgumentException("Empty order command");
+        }
+        return command;
+    }
+}
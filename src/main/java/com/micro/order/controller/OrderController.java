@@ -1,55 +1,164 @@
 package com.micro.order.controller;
 
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.BatchOrderResult;
 import com.micro.order.dto.CancelOrderRequest;
 import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.LineItemMigrationResult;
+import com.micro.order.dto.OrderChangePage;
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderPage;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.dto.SummaryRebuildResult;
 import com.micro.order.entity.Order;
+import com.micro.order.entity.UserOrderSummary;
+import com.micro.order.service.LineItemMigrator;
+import com.micro.order.service.OrderChangeFeed;
 import com.micro.order.service.OrderService;
+import com.micro.order.service.UserSummaryService;
+import com.micro.order.util.PaymentStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    // Oluşturma/iptal yanıtlarında yazma zamanı (epoch ms); istemci sonraki okumalarda geri gönderirse okuma hangi
+    // örneğe düşerse düşsün read-your-writes süresi boyunca birincilden yapılır
+    private static final String LAST_WRITE_AT = "Last-Write-At";
+
     private final OrderService orderService;
+    private final UserSummaryService userSummaryService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final LineItemMigrator lineItemMigrator;
 
-    @Operation(summary = "Yeni bir sipariş oluştur")
+    @Operation(summary = "Yeni bir sipariş oluştur (Idempotency-Key ile tekrarlanan istekler aynı siparişi döner; anahtar kullanıcı bazındadır, farklı bir sepetle tekrar kullanılırsa 422, aynı anahtarlı istek hâlâ işleniyorsa 503)")
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest request) {
-        Order createdOrder = orderService.createOrder(request);
-        return ResponseEntity.ok(createdOrder);
+    public ResponseEntity<OrderResponse> createOrder(@RequestBody CreateOrderRequest request,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Order createdOrder = orderService.createOrder(request, idempotencyKey);
+        return ResponseEntity.ok()
+                .header(LAST_WRITE_AT, String.valueOf(System.currentTimeMillis()))
+                .body(OrderResponse.of(createdOrder));
+    }
+
+    @Operation(summary = "Toplu sipariş oluştur (içe aktarma / tekrar oynatma işleri için)")
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchOrderResult>> createOrders(@RequestBody List<CreateOrderRequest> requests) {
+        List<BatchOrderResult> results = orderService.createOrders(requests);
+        return ResponseEntity.ok(results);
     }
 
     @Operation(summary = "Siparişi iptal et")
     @PostMapping("/cancel")
-    public ResponseEntity<Order> cancelOrder(@RequestBody CancelOrderRequest request) {
+    public ResponseEntity<OrderResponse> cancelOrder(@RequestBody CancelOrderRequest request) {
         Order canceledOrder = orderService.cancelOrder(request);
-        return ResponseEntity.ok(canceledOrder);
+        return ResponseEntity.ok()
+                .header(LAST_WRITE_AT, String.valueOf(System.currentTimeMillis()))
+                .body(OrderResponse.of(canceledOrder));
+    }
+
+    @Operation(summary = "Siparişleri id listesine veya kullanıcı / zaman aralığı filtresine göre toplu iptal et (ilerleme NDJSON olarak akar)")
+    @PostMapping(value = "/cancel/batch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> cancelOrders(@RequestBody BatchCancelRequest request) {
+        StreamingResponseBody body = out -> orderService.cancelOrders(request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
-    @Operation(summary = "Tüm siparişleri getir")
+    @Operation(summary = "Siparişleri cursor tabanlı sayfalayarak getir")
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPage> getAllOrders(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @RequestParam(required = false) Boolean canceled,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        OrderFilter filter = new OrderFilter(paymentStatus, canceled, createdFrom, createdTo);
+        OrderPage page = orderService.getOrders(filter, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Siparişleri NDJSON olarak akış halinde dışa aktar")
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @RequestParam(required = false) Boolean canceled,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        OrderFilter filter = new OrderFilter(paymentStatus, canceled, createdFrom, createdTo);
+        StreamingResponseBody body = out -> orderService.exportOrders(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
-    @Operation(summary = "ID'ye göre sipariş getir")
+    @Operation(summary = "Sipariş değişiklik akışı: cursor'dan sonraki oluşturma/iptal olayları; yeni olay yoksa waitMs kadar beklenir (long-poll)",
+            description = "Olaylar en az bir kez ve sıra numarasına göre artan sırada verilir; cursor'ın gerisinde yeni olay belirmez."
+                    + " Sıra numarası eklenirken alınır, commit sırası farklı olabilir: geç commit edilen bir olay"
+                    + " (order.feed.late-window-ms içinde, varsayılan 10 dakika) yeni bir sıra numarasıyla akışın sonuna taşınarak verilir."
+                    + " Bu süreden uzun süren bir transaction'ın olayı akışta yer almaz.")
+    @GetMapping("/changes")
+    public CompletableFuture<OrderChangePage> getChanges(@RequestParam(required = false) Long cursor,
+                                                         @RequestParam(defaultValue = "100") int limit,
+                                                         @RequestParam(defaultValue = "25000") long waitMs) {
+        return orderChangeFeed.await(cursor, limit, waitMs);
+    }
+
+    @Operation(summary = "ID'ye göre sipariş getir (includeArchived=true ile arşivlenmiş siparişler de aranır)",
+            description = "Oluşturma/iptal yanıtındaki Last-Write-At başlığı geri gönderilirse, yazmadan sonraki"
+                    + " order.datasource.replica.read-your-writes-ms boyunca okuma birincilden yapılır.")
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Order order = orderService.getOrderById(id);
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id,
+                                                      @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                      @RequestHeader(value = LAST_WRITE_AT, required = false) Long lastWriteAt) {
+        OrderResponse order = orderService.getOrderById(id, includeArchived, lastWriteAt);
         return ResponseEntity.ok(order);
     }
 
-    @Operation(summary = "Belirli bir kullanıcıya ait tüm siparişleri getir")
+    @Operation(summary = "Belirli bir kullanıcıya ait tüm siparişleri getir (includeArchived=true ile arşivdekiler de döner)",
+            description = "Last-Write-At başlığı için bkz. ID'ye göre sipariş getirme.")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Long userId) {
-        List<Order> orders = orderService.getOrdersByUserId(userId);
+    public ResponseEntity<List<OrderResponse>> getOrdersByUserId(@PathVariable Long userId,
+                                                                 @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                                 @RequestHeader(value = LAST_WRITE_AT, required = false) Long lastWriteAt) {
+        List<OrderResponse> orders = orderService.getOrdersByUserId(userId, includeArchived, lastWriteAt);
         return ResponseEntity.ok(orders);
     }
+
+    @Operation(summary = "Kullanıcının sipariş özeti: ödeme durumuna göre sayılar, ürün bazında toplam miktar ve son sipariş zamanı")
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<UserOrderSummary> getUserSummary(@PathVariable Long userId,
+                                                           @RequestHeader(value = LAST_WRITE_AT, required = false) Long lastWriteAt) {
+        UserOrderSummary summary = userSummaryService.getSummary(userId, lastWriteAt);
+        return ResponseEntity.ok(summary);
+    }
+
+    @Operation(summary = "Kullanıcı özetlerini siparişlerden baştan hesapla (bakım işi)")
+    @PostMapping("/summaries/rebuild")
+    public ResponseEntity<SummaryRebuildResult> rebuildUserSummaries() {
+        SummaryRebuildResult result = userSummaryService.rebuild();
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Mevcut siparişlerin kalemlerini order_products'tan paketli line_items kolonuna taşı (bakım işi)")
+    @PostMapping("/line-items/pack")
+    public ResponseEntity<LineItemMigrationResult> packLineItems() {
+        LineItemMigrationResult result = lineItemMigrator.migrate();
+        return ResponseEntity.ok(result);
+    }
 }
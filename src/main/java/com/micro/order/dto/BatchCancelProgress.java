@@ -0,0 +1,5 @@
+package com.micro.order.dto;
+
+// Toplu iptalin ilerlemesi: işlenen ve gerçekten iptal edilen sipariş sayısı; son satırda done=true
+public record BatchCancelProgress(long processed, long canceled, boolean done) {
+}
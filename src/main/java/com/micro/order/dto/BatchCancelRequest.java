@@ -0,0 +1,22 @@
+package com.micro.order.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Toplu iptal isteği: ya sipariş id'leri ya da kullanıcı / zaman aralığı filtresi verilir
+public record BatchCancelRequest(List<Long> orderIds, Long userId, LocalDateTime createdFrom, LocalDateTime createdTo) {
+
+    public BatchCancelRequest {
+        if (!hasOrderIds(orderIds) && userId == null && createdFrom == null && createdTo == null) {
+            throw new IllegalArgumentException("Either orderIds or a filter (userId, createdFrom, createdTo) is required");
+        }
+    }
+
+    public boolean byOrderIds() {
+        return hasOrderIds(orderIds);
+    }
+
+    private static boolean hasOrderIds(List<Long> orderIds) {
+        return orderIds != null && !orderIds.isEmpty();
+    }
+}
@@ -0,0 +1,11 @@
+package com.micro.order.dto;
+
+import com.micro.order.util.PaymentStatus;
+
+// Toplu sipariş isteğindeki tek bir kalemin sonucu; error doluysa sipariş oluşturulmamıştır
+public record BatchOrderResult(int index, Long orderId, PaymentStatus paymentStatus, String error) {
+
+    public static BatchOrderResult failed(int index, String error) {
+        return new BatchOrderResult(index, null, null, error);
+    }
+}
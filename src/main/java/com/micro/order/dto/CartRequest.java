@@ -0,0 +1,15 @@
+package com.micro.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// cart_service_queue / get_cart_request mesajı (get_cart_by_id, delete_cart)
+public record CartRequest(String action, @JsonProperty("cart_id") Long cartId) {
+
+    public static CartRequest getCart(Long cartId) {
+        return new CartRequest("get_cart_by_id", cartId);
+    }
+
+    public static CartRequest deleteCart(Long cartId) {
+        return new CartRequest("delete_cart", cartId);
+    }
+}
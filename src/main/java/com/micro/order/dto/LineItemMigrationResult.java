@@ -0,0 +1,5 @@
+package com.micro.order.dto;
+
+// Kalemlerin paketli biçime taşınma sonucu: işlenen parça ve sipariş sayısı, geçen süre
+public record LineItemMigrationResult(int chunks, long orders, long elapsedMs) {
+}
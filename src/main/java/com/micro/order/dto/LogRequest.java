@@ -0,0 +1,12 @@
+package com.micro.order.dto;
+
+// log_service_queue'ya gönderilen log mesajı
+public record LogRequest(String service, Content content) {
+
+    public LogRequest(String service, String level, String message) {
+        this(service, new Content(level, message));
+    }
+
+    public record Content(String level, String message) {
+    }
+}
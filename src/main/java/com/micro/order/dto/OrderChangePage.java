@@ -0,0 +1,10 @@
+package com.micro.order.dto;
+
+import com.micro.order.entity.OrderChangeEvent;
+
+import java.util.List;
+
+// Değişiklik akışından bir parça: cursor, bir sonraki istekte gönderilecek konumdur.
+// truncated, istenen cursor'dan sonraki olayların bir kısmının saklama süresi dolduğu için silindiğini bildirir.
+public record OrderChangePage(List<OrderChangeEvent> changes, long cursor, boolean truncated) {
+}
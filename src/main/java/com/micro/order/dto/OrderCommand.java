@@ -0,0 +1,21 @@
+package com.micro.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// order_service_queue'ya gelen komut: create_order (user_id, cart_id, isteğe bağlı idempotency_key) veya cancel_order (order_id)
+public record OrderCommand(String action,
+                           @JsonProperty("user_id") Long userId,
+                           @JsonProperty("cart_id") Long cartId,
+                           @JsonProperty("order_id") Long orderId,
+                           @JsonProperty("idempotency_key") String idempotencyKey) {
+
+    public static final String CREATE_ORDER = "create_order";
+    public static final String CANCEL_ORDER = "cancel_order";
+
+    public CreateOrderRequest toCreateRequest() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setCartId(cartId);
+        return request;
+    }
+}
@@ -0,0 +1,14 @@
+package com.micro.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.micro.order.util.PaymentStatus;
+
+// Komutun sonucu; error doluysa komut uygulanmamıştır
+public record OrderCommandReply(@JsonProperty("order_id") Long orderId,
+                                @JsonProperty("payment_status") PaymentStatus paymentStatus,
+                                String error) {
+
+    public static OrderCommandReply failed(String error) {
+        return new OrderCommandReply(null, null, error);
+    }
+}
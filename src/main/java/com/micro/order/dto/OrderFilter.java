@@ -0,0 +1,16 @@
+package com.micro.order.dto;
+
+import com.micro.order.util.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+// Sipariş listeleme/dışa aktarma filtreleri; null alanlar filtre uygulanmadığı anlamına gelir
+public record OrderFilter(PaymentStatus paymentStatus,
+                          Boolean canceled,
+                          LocalDateTime createdFrom, // Dahil
+                          LocalDateTime createdTo) { // Hariç
+
+    public static OrderFilter none() {
+        return new OrderFilter(null, null, null, null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.micro.order.dto;
+
+import java.util.List;
+
+// Cursor tabanlı sayfa; nextCursor null ise son sayfadır
+public record OrderPage(List<OrderResponse> orders, Long nextCursor) {
+}
@@ -0,0 +1,199 @@
+package com.micro.order.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.PackedLineItems;
+import com.micro.order.util.PaymentStatus;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sipariş yanıtı; önbellekte de bu değişmez ve kompakt biçimde tutulur.
+ * Ürünler paralel ilkel dizilerde saklanır; yönetilen entity ya da Hibernate koleksiyonu tutulmaz (diziler
+ * paylaşılır, değiştirilmemelidir). productId'si null olan kalemler nullProductIds'te işaretlenir (hiç yoksa null).
+ * JSON ve Smile çıktısı önceden yazılmış Serializer ile üretilir; biçim Order entity'sinin eski JSON'uyla aynıdır:
+ * products, {productId, quantity} nesnelerinden oluşan bir dizidir.
+ */
+@JsonSerialize(using = OrderResponse.Serializer.class)
+public record OrderResponse(Long id,
+                            Long userId,
+                            Long cartId,
+                            LocalDateTime createdAt,
+                            LocalDateTime updatedAt,
+                            PaymentStatus paymentStatus,
+                            boolean canceled,
+                            long[] productIds,
+                            int[] quantities,
+                            BitSet nullProductIds) {
+
+    // i. kalemin ürün id'si; null saklanmışsa null
+    public Long productId(int index) {
+        return nullProductIds != null && nullProductIds.get(index) ? null : productIds[index];
+    }
+
+    public static OrderResponse of(Order order) {
+        List<OrderProduct> products = order.getProducts() != null ? order.getProducts() : List.of();
+        Builder builder = new Builder(order.getId(), order.getUserId(), order.getCartId(), order.getCreatedAt(),
+                order.getUpdatedAt(), order.getPaymentStatus(), order.isCanceled(), null);
+        products.forEach(product -> builder.add(product.getProductId(), product.getQuantity()));
+        return builder.build();
+    }
+
+    // OrderRepository'nin yanıt projeksiyonu satırları (id sıralı, kalem başına bir satır):
+    // id, userId, cartId, createdAt, updatedAt, paymentStatus, canceled, lineItems, productId, quantity
+    public static List<OrderResponse> fromRows(List<Object[]> rows) {
+        List<OrderResponse> responses = new ArrayList<>();
+        Builder builder = null;
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            if (builder == null || !builder.id.equals(id)) {
+                if (builder != null) {
+                    responses.add(builder.build());
+                }
+                builder = new Builder(id, (Long) row[1], (Long) row[2], (LocalDateTime) row[3], (LocalDateTime) row[4],
+                        (PaymentStatus) row[5], (Boolean) row[6], (PackedLineItems) row[7]);
+            }
+            if (row[8] != null) {
+                builder.add((Long) row[8], (Integer) row[9]);
+            }
+        }
+        if (builder != null) {
+            responses.add(builder.build());
+        }
+        return responses;
+    }
+
+    // Sırayla okunan kalemlerden yanıt oluşturur; kalemler paketliyse (lineItems) onlar kullanılır
+    public static final class Builder {
+
+        private final Long id;
+        private final Long userId;
+        private final Long cartId;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final PaymentStatus paymentStatus;
+        private final boolean canceled;
+        private long[] productIds = new long[4];
+        private int[] quantities = new int[4];
+        private BitSet nullProductIds;
+        private int size;
+
+        public Builder(Long id, Long userId, Long cartId, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       PaymentStatus paymentStatus, boolean canceled, PackedLineItems lineItems) {
+            this.id = id;
+            this.userId = userId;
+            this.cartId = cartId;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.paymentStatus = paymentStatus;
+            this.canceled = canceled;
+            if (lineItems != null) {
+                lineItems.items().forEach(product -> add(product.getProductId(), product.getQuantity()));
+            }
+        }
+
+        public void add(Long productId, int quantity) {
+            if (size == productIds.length) {
+                productIds = Arrays.copyOf(productIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            if (productId != null) {
+                productIds[size] = productId;
+            } else {
+                if (nullProductIds == null) {
+                    nullProductIds = new BitSet();
+                }
+                nullProductIds.set(size);
+            }
+            quantities[size] = quantity;
+            size++;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public OrderResponse build() {
+            return new OrderResponse(id, userId, cartId, createdAt, updatedAt, paymentStatus, canceled,
+                    Arrays.copyOf(productIds, size), Arrays.copyOf(quantities, size),
+                    nullProductIds != null ? (BitSet) nullProductIds.clone() : null);
+        }
+    }
+
+    // Alan adları bir kez kodlanır; tarihler Jackson'ın LocalDateTime biçimiyle (ISO-8601) yazılır
+    public static final class Serializer extends StdSerializer<OrderResponse> {
+
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString USER_ID = new SerializedString("userId");
+        private static final SerializedString CART_ID = new SerializedString("cartId");
+        private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+        private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+        private static final SerializedString PAYMENT_STATUS = new SerializedString("paymentStatus");
+        private static final SerializedString CANCELED = new SerializedString("canceled");
+        private static final SerializedString PRODUCTS = new SerializedString("products");
+        private static final SerializedString PRODUCT_ID = new SerializedString("productId");
+        private static final SerializedString QUANTITY = new SerializedString("quantity");
+
+        public Serializer() {
+            super(OrderResponse.class);
+        }
+
+        @Override
+        public void serialize(OrderResponse order, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(order);
+            writeNumber(generator, ID, order.id());
+            writeNumber(generator, USER_ID, order.userId());
+            writeNumber(generator, CART_ID, order.cartId());
+            writeDateTime(generator, CREATED_AT, order.createdAt());
+            writeDateTime(generator, UPDATED_AT, order.updatedAt());
+            generator.writeFieldName(PAYMENT_STATUS);
+            if (order.paymentStatus() != null) {
+                generator.writeString(order.paymentStatus().name());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeFieldName(CANCELED);
+            generator.writeBoolean(order.canceled());
+            generator.writeFieldName(PRODUCTS);
+            generator.writeStartArray(order.productIds(), order.productIds().length);
+            for (int i = 0; i < order.productIds().length; i++) {
+                generator.writeStartObject();
+                writeNumber(generator, PRODUCT_ID, order.productId(i));
+                generator.writeFieldName(QUANTITY);
+                generator.writeNumber(order.quantities()[i]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        private static void writeNumber(JsonGenerator generator, SerializedString name, Long value) throws IOException {
+            generator.writeFieldName(name);
+            if (value != null) {
+                generator.writeNumber(value);
+            } else {
+                generator.writeNull();
+            }
+        }
+
+        private static void writeDateTime(JsonGenerator generator, SerializedString name, LocalDateTime value) throws IOException {
+            generator.writeFieldName(name);
+            if (value != null) {
+                generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            } else {
+                generator.writeNull();
+            }
+        }
+    }
+}
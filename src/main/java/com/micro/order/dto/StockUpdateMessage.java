@@ -0,0 +1,7 @@
+package com.micro.order.dto;
+
+import java.util.List;
+
+// product_service_queue'ya giden stok güncelleme mesajı
+public record StockUpdateMessage(String action, List<ProductSchema> products) {
+}
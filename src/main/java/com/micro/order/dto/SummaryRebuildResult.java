@@ -0,0 +1,5 @@
+package com.micro.order.dto;
+
+// Kullanıcı özetlerinin yeniden hesaplanma sonucu: işlenen parça ve kullanıcı sayısı, geçen süre
+public record SummaryRebuildResult(int chunks, long users, long elapsedMs) {
+}
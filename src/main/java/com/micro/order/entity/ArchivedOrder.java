@@ -0,0 +1,48 @@
+package com.micro.order.entity;
+
+import com.micro.order.util.LineItemPacker;
+import com.micro.order.util.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// order_archive'e taşınmış sipariş; kalemler products kolonunda paketlenmiş olarak tutulur (bkz. LineItemPacker)
+@Entity
+@Table(name = "order_archive", indexes = @Index(name = "idx_order_archive_user_id", columnList = "userId, id"))
+@Data
+@NoArgsConstructor
+public class ArchivedOrder {
+    @Id
+    private Long id; // Canlı tablodaki sipariş id'si korunur
+
+    private Long userId;
+    private Long cartId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    private boolean canceled;
+
+    private LocalDateTime archivedAt; // Arşive taşınma zamanı
+
+    @Column(length = 1_048_576)
+    private byte[] products;
+
+    // Yanıtlarda canlı siparişlerle aynı biçimde dönmek için (yönetilmeyen) Order'a çevir
+    public Order toOrder() {
+        Order order = new Order();
+        order.setId(id);
+        order.setUserId(userId);
+        order.setCartId(cartId);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(updatedAt);
+        order.setPaymentStatus(paymentStatus);
+        order.setCanceled(canceled);
+        order.setProducts(LineItemPacker.unpack(products));
+        return order;
+    }
+}
@@ -0,0 +1,23 @@
+package com.micro.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Idempotency-Key ile oluşturulan siparişin kaydı; sipariş ile aynı transaction'da yazılır
+@Entity
+@Table(name = "order_idempotency_keys", indexes = @Index(name = "idx_order_idempotency_created_at", columnList = "createdAt"))
+@Data
+@NoArgsConstructor
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", length = 160)
+    private String key; // Kullanıcı id'si ile kapsamlanmış Idempotency-Key ("userId:anahtar")
+
+    @Column(length = 64)
+    private String fingerprint;      // İsteğin özeti ("userId:cartId"); anahtar farklı istekle kullanılamaz
+    private Long orderId;            // Anahtarla oluşturulan sipariş
+    private LocalDateTime createdAt; // TTL ile silinme için
+}
@@ -0,0 +1,20 @@
+package com.micro.order.entity;
+
+import com.micro.order.util.PackedLineItems;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// orders.line_items <-> PackedLineItems; okumada çözme yapılmaz, kalemler ilk erişimde çözülür
+@Converter
+public class LineItemsConverter implements AttributeConverter<PackedLineItems, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(PackedLineItems lineItems) {
+        return lineItems != null ? lineItems.bytes() : null;
+    }
+
+    @Override
+    public PackedLineItems convertToEntityAttribute(byte[] bytes) {
+        return PackedLineItems.wrap(bytes);
+    }
+}
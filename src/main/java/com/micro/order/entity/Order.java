@@ -1,10 +1,13 @@
 package com.micro.order.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.micro.order.util.PackedLineItems;
 import com.micro.order.util.PaymentStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
@@ -26,8 +29,33 @@ public class Order {
 
     private boolean canceled; // Siparişin iptal edilip edilmediği
 
+    // İyimser kilit: eşzamanlı güncellemelerde sonra yazan hata alır (toplu SQL güncellemeleri de artırır)
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // Ürün listesi: Bir siparişte birden fazla ürün olabilir
     @ElementCollection
     @CollectionTable(name = "order_products", joinColumns = @JoinColumn(name = "order_id"))
     private List<OrderProduct> products; // Siparişe ait ürünlerin listesi
+
+    // Paketli saklama: kalemler order_products yerine bu kolonda tutulur (bkz. LineItemStorage)
+    @JsonIgnore
+    @Convert(converter = LineItemsConverter.class)
+    @Column(name = "line_items", length = 1_048_576)
+    private PackedLineItems lineItems;
+
+    // Kalemler paketliyse line_items'tan (ilk erişimde çözülür), değilse order_products'tan
+    public List<OrderProduct> getProducts() {
+        return lineItems != null ? lineItems.items() : products;
+    }
+
+    // Kalemleri line_items kolonuna taşı; order_products'a satır yazılmaz
+    public void packLineItems() {
+        if (lineItems == null) {
+            lineItems = PackedLineItems.of(products != null ? products : List.of());
+            products = new ArrayList<>();
+        }
+    }
 }
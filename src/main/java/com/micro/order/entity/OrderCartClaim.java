@@ -0,0 +1,21 @@
+package com.micro.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Sepetin başarılı siparişi; sepet başına en fazla bir satır. Sipariş iptal edilince veya arşivlenince silinir.
+// orders partition'lı olduğundan (benzersiz index'ler created_at içermek zorunda) kısıt ayrı tabloda tutulur.
+@Entity
+@Table(name = "order_cart_claims", indexes = @Index(name = "idx_order_cart_claims_order_id", columnList = "orderId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCartClaim {
+    @Id
+    private Long cartId;
+
+    @Column(nullable = false)
+    private Long orderId;
+}
@@ -0,0 +1,40 @@
+package com.micro.order.entity;
+
+import com.micro.order.util.OrderChangeType;
+import com.micro.order.util.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Sipariş değişiklik akışındaki olay; sipariş ile aynı transaction'da eklenir, sequence artan sırayla verilir
+@Entity
+@Table(name = "order_change_events", indexes = @Index(name = "idx_order_change_events_occurred_at", columnList = "occurredAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long sequence; // Akıştaki sıra numarası (istemcinin cursor'ı)
+
+    private Long orderId;
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", length = 16)
+    private OrderChangeType type;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus; // Değişiklik sonrası ödeme durumu
+
+    private LocalDateTime occurredAt;
+
+    public static OrderChangeEvent of(OrderChangeType type, Long orderId, Long userId, PaymentStatus paymentStatus,
+                                      LocalDateTime occurredAt) {
+        return new OrderChangeEvent(null, orderId, userId, type, paymentStatus, occurredAt);
+    }
+}
@@ -9,7 +9,9 @@ public class OrderProduct {
     private Long productId; // Ürün ID'si
     private int quantity;   // Ürün miktarı
 
-    public OrderProduct(long l, int i) {
+    public OrderProduct(long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
     }
 
     public OrderProduct() {
@@ -0,0 +1,37 @@
+package com.micro.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Sipariş ile aynı transaction'da yazılan, OutboxRelay tarafından yayınlanacak mesaj
+@Entity
+@Table(name = "order_outbox", indexes = @Index(name = "idx_order_outbox_next_attempt", columnList = "nextAttemptAt"))
+@Data
+@NoArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String destination; // Hedef kuyruk (cart_service_queue, product_service_queue)
+
+    @Column(columnDefinition = "text")
+    private String payload; // Gönderilecek mesaj gövdesi
+
+    private LocalDateTime createdAt;     // Outbox'a yazılma zamanı
+    private LocalDateTime nextAttemptAt;  // Bir sonraki gönderim denemesi (dead letter ise null)
+    private int attempts;                 // Başarısız deneme sayısı
+    private String lastError;             // Son hatanın mesajı
+    private LocalDateTime deadLetteredAt; // Deneme sınırı aşılıp yayından çıkarıldığı zaman
+
+    public OutboxMessage(String destination, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        this.destination = destination;
+        this.payload = payload;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+}
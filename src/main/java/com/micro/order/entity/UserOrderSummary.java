@@ -0,0 +1,36 @@
+package com.micro.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// Kullanıcının sipariş özeti (okuma modeli); sipariş oluşturma/iptal transaction'larında artımlı güncellenir
+@Entity
+@Table(name = "order_user_summaries")
+@Data
+@NoArgsConstructor
+public class UserOrderSummary {
+    @Id
+    private Long userId;
+
+    private long successCount;  // Ödemesi alınmış (SUCCESS) siparişler
+    private long failedCount;   // Ödemesi başarısız (FAILED) siparişler
+    private long canceledCount; // İptal edilmiş (CANCELED) siparişler
+
+    private LocalDateTime lastOrderAt; // Son siparişin oluşturulma zamanı
+
+    // Ödemesi alınmış ve iptal edilmemiş siparişlerdeki ürün bazında toplam miktar
+    @ElementCollection
+    @CollectionTable(name = "order_user_product_totals", joinColumns = @JoinColumn(name = "user_id"))
+    @MapKeyColumn(name = "product_id")
+    @Column(name = "quantity")
+    private Map<Long, Long> productQuantities = new HashMap<>();
+
+    public long getTotalOrders() {
+        return successCount + failedCount + canceledCount;
+    }
+}
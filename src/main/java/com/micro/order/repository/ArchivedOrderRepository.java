@@ -0,0 +1,17 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    // Kullanıcının arşivlenmiş siparişleri
+    List<ArchivedOrder> findByUserIdOrderByIdAsc(Long userId);
+
+    // Özet yeniden hesaplaması için (afterUserId, lastUserId] aralığındaki kullanıcıların arşivlenmiş siparişleri
+    @Query("select a from ArchivedOrder a where a.userId > :afterUserId and a.userId <= :lastUserId")
+    List<ArchivedOrder> findByUserRange(@Param("afterUserId") long afterUserId, @Param("lastUserId") long lastUserId);
+}
@@ -0,0 +1,91 @@
+package com.micro.order.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Başarılı siparişlerin sepet kayıtlarını (order_cart_claims, sepet başına tek başarılı sipariş) yazar.
+ * Sepeti başka bir sipariş sahiplenmişse hata fırlatılmaz; yalnızca kazanılan sepetler döner, kaybeden kalemler
+ * çağıranın transaction'ını bozmadan reddedilir. PostgreSQL'de tek bir INSERT ... ON CONFLICT DO NOTHING RETURNING,
+ * diğer veritabanlarında (testlerde H2, hata yalnızca ifadeyi geri alır) satır satır insert kullanılır.
+ */
+@Repository
+public class CartClaimRepository {
+
+    private static final String POSTGRES_CLAIM = "insert into order_cart_claims (cart_id, order_id)"
+            + " select * from unnest(cast(? as bigint[]), cast(? as bigint[]))"
+            + " on conflict (cart_id) do nothing returning cart_id";
+    private static final String INSERT_CLAIM = "insert into order_cart_claims (cart_id, order_id) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres; // Veritabanı türü ilk yazmada belirlenir; açılışta bağlantı açılmaz
+    private final Timer claimTimer;
+
+    public CartClaimRepository(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.claimTimer = Timer.builder("order.jdbc.invocations")
+                .tags("repository", "CartClaimRepository", "method", "claim")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Sepetleri (cartId -> orderId) çağıranın transaction'ında sahiplen; sahiplenilen sepet id'lerini döner
+    public Set<Long> claim(Map<Long, Long> orderIdsByCartId) {
+        if (orderIdsByCartId.isEmpty()) {
+            return new HashSet<>();
+        }
+        // Eşzamanlı yazmalar satırları aynı sırada kilitlesin diye sepet id'sine göre sıralanır
+        TreeMap<Long, Long> claims = new TreeMap<>(orderIdsByCartId);
+        return claimTimer.record(() -> isPostgres() ? claimPostgres(claims) : claimEach(claims));
+    }
+
+    private Set<Long> claimPostgres(TreeMap<Long, Long> claims) {
+        return jdbcTemplate.execute((ConnectionCallback<Set<Long>>) connection -> {
+            Set<Long> claimed = new HashSet<>();
+            try (PreparedStatement statement = connection.prepareStatement(POSTGRES_CLAIM)) {
+                statement.setArray(1, connection.createArrayOf("bigint", claims.keySet().toArray()));
+                statement.setArray(2, connection.createArrayOf("bigint", claims.values().toArray()));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        claimed.add(rs.getLong(1));
+                    }
+                }
+            }
+            return claimed;
+        });
+    }
+
+    private Set<Long> claimEach(TreeMap<Long, Long> claims) {
+        Set<Long> claimed = new HashSet<>();
+        claims.forEach((cartId, orderId) -> {
+            try {
+                jdbcTemplate.update(INSERT_CLAIM, cartId, orderId);
+                claimed.add(cartId);
+            } catch (DuplicateKeyException e) {
+                // Sepetin başka bir başarılı siparişi var
+            }
+        });
+        return claimed;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    // save() var olan anahtarı merge ile ezeceğinden doğrudan insert edilir; çakışmada birincil anahtar ihlali fırlar
+    @Modifying
+    @Query(value = "insert into order_idempotency_keys (idempotency_key, fingerprint, order_id, created_at)"
+            + " values (:key, :fingerprint, :orderId, :createdAt)", nativeQuery = true)
+    int insert(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("orderId") Long orderId,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    // Süresi dolan anahtarları sil
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,79 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.LineItemPacker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Mevcut siparişlerin kalemlerini order_products satırlarından orders.line_items kolonuna JDBC ile taşır
+@Repository
+public class LineItemMigrationRepository {
+
+    private static final String NEXT_UNPACKED_IDS = "select id from orders where id > ? and line_items is null"
+            + " order by id fetch first ? rows only";
+    // version artırılır: taşımadan önce yüklenmiş bir sipariş kaydedilirse line_items üzerine yazılmaz
+    private static final String UPDATE_LINE_ITEMS = "update orders set line_items = ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer packTimer;
+
+    public LineItemMigrationRepository(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.packTimer = Timer.builder("order.jdbc.invocations")
+                .tags("repository", "LineItemMigrationRepository", "method", "pack")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // afterId'den büyük, kalemleri henüz paketlenmemiş en fazla limit sipariş id'si
+    public List<Long> nextUnpackedIds(long afterId, int limit) {
+        return jdbcTemplate.queryForList(NEXT_UNPACKED_IDS, Long.class, afterId, limit);
+    }
+
+    // Siparişleri kilitleyip kalemlerini paketle ve order_products satırlarını sil; taşınan sipariş sayısını döner
+    @Transactional
+    public int pack(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return packTimer.record(() -> move(ids));
+    }
+
+    private int move(List<Long> ids) {
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Object[] params = ids.toArray();
+        // Bu arada paketlenmiş veya silinmiş siparişler dönmez
+        List<Long> locked = jdbcTemplate.queryForList("select id from orders where id in (" + in + ")"
+                + " and line_items is null order by id for update", Long.class, params);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        String lockedIn = String.join(", ", Collections.nCopies(locked.size(), "?"));
+        Object[] lockedParams = locked.toArray();
+        Map<Long, List<OrderProduct>> products = new HashMap<>();
+        jdbcTemplate.query("select order_id, product_id, quantity from order_products where order_id in (" + lockedIn + ")",
+                rs -> {
+                    OrderProduct product = new OrderProduct();
+                    product.setProductId(rs.getObject("product_id", Long.class));
+                    product.setQuantity(rs.getInt("quantity"));
+                    products.computeIfAbsent(rs.getLong("order_id"), id -> new ArrayList<>()).add(product);
+                }, lockedParams);
+
+        List<Object[]> updates = new ArrayList<>(locked.size());
+        for (Long id : locked) {
+            updates.add(new Object[]{LineItemPacker.pack(products.getOrDefault(id, List.of())), id});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_LINE_ITEMS, updates);
+        jdbcTemplate.update("delete from order_products where order_id in (" + lockedIn + ")", lockedParams);
+        return locked.size();
+    }
+}
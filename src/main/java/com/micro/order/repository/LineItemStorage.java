@@ -0,0 +1,34 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Yeni siparişlerin kalemlerinin nerede saklanacağı (order.line-items.storage):
+ * table - her kalem order_products'ta ayrı satır; packed - kalemler orders.line_items kolonunda tek değer.
+ * Okumalar iki biçimi de destekler; mevcut siparişler LineItemMigrator ile paketli biçime taşınır.
+ */
+@Component
+public class LineItemStorage {
+
+    private final boolean packed;
+
+    public LineItemStorage(@Value("${order.line-items.storage:table}") String storage) {
+        if (!"table".equals(storage) && !"packed".equals(storage)) {
+            throw new IllegalArgumentException("order.line-items.storage must be 'table' or 'packed': " + storage);
+        }
+        this.packed = "packed".equals(storage);
+    }
+
+    public boolean isPacked() {
+        return packed;
+    }
+
+    // Kaydedilmeden önce siparişi seçili saklama biçimine hazırla
+    public void prepare(Order order) {
+        if (packed) {
+            order.packLineItems();
+        }
+    }
+}
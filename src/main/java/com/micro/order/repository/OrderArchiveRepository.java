@@ -0,0 +1,71 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.Order;
+import com.micro.order.util.LineItemPacker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Siparişleri JDBC batch ile order_archive'e yazar ve canlı tablolardan siler
+@Repository
+public class OrderArchiveRepository {
+
+    private static final String INSERT_ARCHIVE = "insert into order_archive"
+            + " (id, user_id, cart_id, created_at, updated_at, payment_status, canceled, archived_at, products)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_PRODUCTS = "delete from order_products where order_id = ?";
+    private static final String DELETE_ORDER = "delete from orders where id = ?";
+    private static final String DELETE_CLAIM = "delete from order_cart_claims where order_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Timer archiveTimer;
+
+    public OrderArchiveRepository(JdbcTemplate jdbcTemplate,
+                                  @Value("${order.batch.jdbc-batch-size:500}") int batchSize,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.archiveTimer = Timer.builder("order.jdbc.invocations")
+                .tags("repository", "OrderArchiveRepository", "method", "archive")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Siparişleri (ürünleri yüklenmiş olarak) arşive yaz ve canlı tablolardan sil; tek transaction
+    @Transactional
+    public void archive(List<Order> orders, LocalDateTime archivedAt) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        archiveTimer.record(() -> move(orders, archivedAt));
+    }
+
+    private void move(List<Order> orders, LocalDateTime archivedAt) {
+        Timestamp archived = Timestamp.valueOf(archivedAt);
+        jdbcTemplate.batchUpdate(INSERT_ARCHIVE, orders, batchSize, (ps, order) -> {
+            ps.setLong(1, order.getId());
+            ps.setObject(2, order.getUserId(), Types.BIGINT);
+            ps.setObject(3, order.getCartId(), Types.BIGINT);
+            ps.setTimestamp(4, order.getCreatedAt() != null ? Timestamp.valueOf(order.getCreatedAt()) : null);
+            ps.setTimestamp(5, order.getUpdatedAt() != null ? Timestamp.valueOf(order.getUpdatedAt()) : null);
+            ps.setString(6, order.getPaymentStatus() != null ? order.getPaymentStatus().name() : null);
+            ps.setBoolean(7, order.isCanceled());
+            ps.setTimestamp(8, archived);
+            // Paketli saklanan kalemler aynı biçimde olduğundan yeniden paketlenmez
+            ps.setBytes(9, order.getLineItems() != null ? order.getLineItems().bytes() : LineItemPacker.pack(order.getProducts()));
+        });
+        jdbcTemplate.batchUpdate(DELETE_PRODUCTS, orders, batchSize, (ps, order) -> ps.setLong(1, order.getId()));
+        jdbcTemplate.batchUpdate(DELETE_ORDER, orders, batchSize, (ps, order) -> ps.setLong(1, order.getId()));
+        // Arşivlenen siparişin sepeti serbest kalır
+        jdbcTemplate.batchUpdate(DELETE_CLAIM, orders, batchSize, (ps, order) -> ps.setLong(1, order.getId()));
+    }
+}
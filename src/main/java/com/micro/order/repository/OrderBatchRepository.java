@@ -0,0 +1,112 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Siparişleri ve ürünlerini JDBC batch insert ile toplu yazar (paketli saklanan kalemler orders.line_items'a).
+// Başarılı siparişlerin sepetleri önce sahiplenilir; sepeti başka bir siparişe ait olanlar yazılmaz
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER = "insert into orders"
+            + " (id, user_id, cart_id, created_at, updated_at, payment_status, canceled, line_items, version)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_PRODUCT = "insert into order_products"
+            + " (order_id, product_id, quantity) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderIdAllocator idAllocator;
+    private final CartClaimRepository cartClaimRepository;
+    private final int batchSize;
+    private final Timer insertAllTimer;
+
+    public OrderBatchRepository(JdbcTemplate jdbcTemplate,
+                                OrderIdAllocator idAllocator,
+                                CartClaimRepository cartClaimRepository,
+                                @Value("${order.batch.jdbc-batch-size:500}") int batchSize,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.cartClaimRepository = cartClaimRepository;
+        this.batchSize = batchSize;
+        this.insertAllTimer = Timer.builder("order.jdbc.invocations")
+                .tags("repository", "OrderBatchRepository", "method", "insertAll")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Siparişlere id atar ve tek transaction içinde yazar; yazılan siparişleri döner (sepetini kaybedenler hariç)
+    @Transactional
+    public List<Order> insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        return insertAllTimer.record(() -> insert(orders));
+    }
+
+    private List<Order> insert(List<Order> orders) {
+        long[] ids = idAllocator.allocate(orders.size());
+        Map<Long, Long> claims = new HashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            order.setId(ids[i]);
+            order.setVersion(0L);
+            if (claimsCart(order)) {
+                claims.putIfAbsent(order.getCartId(), order.getId());
+            }
+        }
+        // Sepeti başka bir örneğin siparişi sahiplendiyse yalnızca o kalem düşer, batch geri alınmaz
+        Set<Long> claimed = cartClaimRepository.claim(claims);
+        List<Order> written = orders.stream()
+                .filter(order -> !claimsCart(order)
+                        || claimed.contains(order.getCartId()) && Objects.equals(claims.get(order.getCartId()), order.getId()))
+                .toList();
+
+        List<Object[]> productRows = new ArrayList<>();
+        for (Order order : written) {
+            if (order.getLineItems() != null) {
+                continue; // Kalemler line_items kolonunda
+            }
+            for (OrderProduct product : order.getProducts()) {
+                productRows.add(new Object[]{order.getId(), product.getProductId(), product.getQuantity()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER, written, batchSize, (ps, order) -> {
+            ps.setLong(1, order.getId());
+            ps.setObject(2, order.getUserId(), Types.BIGINT);
+            ps.setObject(3, order.getCartId(), Types.BIGINT);
+            ps.setTimestamp(4, order.getCreatedAt() != null ? Timestamp.valueOf(order.getCreatedAt()) : null);
+            ps.setTimestamp(5, order.getUpdatedAt() != null ? Timestamp.valueOf(order.getUpdatedAt()) : null);
+            ps.setString(6, order.getPaymentStatus() != null ? order.getPaymentStatus().name() : null);
+            ps.setBoolean(7, order.isCanceled());
+            ps.setBytes(8, order.getLineItems() != null ? order.getLineItems().bytes() : null);
+        });
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, productRows, batchSize, (ps, row) -> {
+            ps.setLong(1, (Long) row[0]);
+            ps.setObject(2, row[1], Types.BIGINT);
+            ps.setInt(3, (Integer) row[2]);
+        });
+        return written;
+    }
+
+    private static boolean claimsCart(Order order) {
+        return order.getPaymentStatus() == PaymentStatus.SUCCESS && order.getCartId() != null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.OrderChangeEvent;
+import com.micro.order.util.OrderChangeType;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// order_change_events tablosunu JDBC ile yazar ve okur; olaylar çağıranın transaction'ında eklenir
+@Repository
+public class OrderChangeRepository {
+
+    private static final String INSERT = "insert into order_change_events"
+            + " (order_id, user_id, change_type, payment_status, occurred_at) values (?, ?, ?, ?, ?)";
+    private static final String FIND_AFTER = "select id, order_id, user_id, change_type, payment_status, occurred_at"
+            + " from order_change_events where id > ? and id <= ? order by id fetch first ? rows only";
+    private static final String FIND_SEQUENCES = "select id, order_id, user_id, change_type, payment_status, occurred_at"
+            + " from order_change_events where id in (%s) order by id";
+    private static final String FIND_SEQUENCE_IDS = "select id from order_change_events where id > ? order by id";
+    private static final String DELETE_SEQUENCE = "delete from order_change_events where id = ?";
+    private static final String MAX_SEQUENCE = "select coalesce(max(id), 0) from order_change_events";
+    private static final String MIN_SEQUENCE = "select min(id) from order_change_events";
+    private static final String DELETE_BEFORE = "delete from order_change_events where occurred_at < ?";
+
+    private static final RowMapper<OrderChangeEvent> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp occurredAt = rs.getTimestamp("occurred_at");
+        String paymentStatus = rs.getString("payment_status");
+        return new OrderChangeEvent(rs.getLong("id"), rs.getObject("order_id", Long.class),
+                rs.getObject("user_id", Long.class), OrderChangeType.valueOf(rs.getString("change_type")),
+                paymentStatus != null ? PaymentStatus.valueOf(paymentStatus) : null,
+                occurredAt != null ? occurredAt.toLocalDateTime() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer appendTimer;
+    private final Timer readTimer;
+
+    public OrderChangeRepository(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.appendTimer = timer(meterRegistry, "append");
+        this.readTimer = timer(meterRegistry, "findAfter");
+    }
+
+    public void append(List<OrderChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        appendTimer.record(() -> jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+            ps.setObject(1, event.getOrderId(), Types.BIGINT);
+            ps.setObject(2, event.getUserId(), Types.BIGINT);
+            ps.setString(3, event.getType().name());
+            ps.setString(4, event.getPaymentStatus() != null ? event.getPaymentStatus().name() : null);
+            ps.setTimestamp(5, Timestamp.valueOf(event.getOccurredAt()));
+        }));
+    }
+
+    // (afterSequence, upToSequence] aralığındaki en fazla limit olay, sıra numarasına göre
+    public List<OrderChangeEvent> findAfter(long afterSequence, long upToSequence, int limit) {
+        return readTimer.record(() -> jdbcTemplate.query(FIND_AFTER, ROW_MAPPER, afterSequence, upToSequence, limit));
+    }
+
+    // Verilen sıra numaralarından var olan olaylar
+    public List<OrderChangeEvent> findSequences(Collection<Long> sequences) {
+        if (sequences.isEmpty()) {
+            return List.of();
+        }
+        String sql = String.format(FIND_SEQUENCES, String.join(",", Collections.nCopies(sequences.size(), "?")));
+        return readTimer.record(() -> jdbcTemplate.query(sql, ROW_MAPPER, sequences.toArray()));
+    }
+
+    // afterSequence'tan büyük sıra numaraları (açılışta boşlukları bulmak için)
+    public List<Long> findSequenceIdsAfter(long afterSequence) {
+        return jdbcTemplate.queryForList(FIND_SEQUENCE_IDS, Long.class, afterSequence);
+    }
+
+    // Geç commit edilen olayı yeni bir sıra numarasıyla akışın sonuna taşı. Olayı yalnızca onu silebilen taşır
+    // (birden fazla örnek aynı olayı görürse tek kopya kalır); taşındıysa true döner.
+    @Transactional
+    public boolean resequence(OrderChangeEvent event) {
+        if (jdbcTemplate.update(DELETE_SEQUENCE, event.getSequence()) == 0) {
+            return false;
+        }
+        append(List.of(event));
+        return true;
+    }
+
+    public long maxSequence() {
+        Long max = jdbcTemplate.queryForObject(MAX_SEQUENCE, Long.class);
+        return max != null ? max : 0L;
+    }
+
+    // Saklanan en eski olayın sıra numarası; tablo boşsa null
+    public Long minSequence() {
+        return jdbcTemplate.queryForObject(MIN_SEQUENCE, Long.class);
+    }
+
+    public int deleteBefore(LocalDateTime occurredBefore) {
+        return jdbcTemplate.update(DELETE_BEFORE, Timestamp.valueOf(occurredBefore));
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String method) {
+        return Timer.builder("order.jdbc.invocations")
+                .tags("repository", "OrderChangeRepository", "method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
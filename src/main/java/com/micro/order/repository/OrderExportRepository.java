@@ -0,0 +1,129 @@
+package com.micro.order.repository;
+
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.util.PackedLineItems;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Siparişleri JDBC cursor'ı ile satır satır okur.
+ * Sonuç kümesi fetch size'lık parçalar halinde çekilir ve her sipariş tamamlandığında
+ * tüketiciye verilir; böylece tablo büyüklüğünden bağımsız olarak bellekte tek bir sipariş tutulur.
+ * PostgreSQL cursor'ı yalnızca açık bir transaction içinde kullandığından çağıran taraf transaction açmalıdır.
+ */
+@Repository
+public class OrderExportRepository {
+
+    private static final String SELECT_ORDERS = "select o.id, o.user_id, o.cart_id, o.created_at, o.updated_at,"
+            + " o.payment_status, o.canceled, o.line_items, p.product_id, p.quantity"
+            + " from orders o left join order_products p on p.order_id = o.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final Timer streamOrdersTimer;
+
+    public OrderExportRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${order.export.fetch-size:500}") int fetchSize,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.streamOrdersTimer = Timer.builder("order.jdbc.invocations")
+                .tags("repository", "OrderExportRepository", "method", "streamOrders")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Filtreye uyan siparişleri id sırasıyla tek tek tüketiciye ver (süreye tüketicinin yazma süresi dahildir)
+    public void streamOrders(OrderFilter filter, Consumer<OrderResponse> consumer) {
+        streamOrdersTimer.record(() -> query(filter, consumer));
+    }
+
+    private void query(OrderFilter filter, Consumer<OrderResponse> consumer) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_ORDERS).append(" where 1 = 1");
+        if (filter.paymentStatus() != null) {
+            sql.append(" and o.payment_status = ?");
+            params.add(filter.paymentStatus().name());
+        }
+        if (filter.canceled() != null) {
+            sql.append(" and o.canceled = ?");
+            params.add(filter.canceled());
+        }
+        if (filter.createdFrom() != null) {
+            sql.append(" and o.created_at >= ?");
+            params.add(Timestamp.valueOf(filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            sql.append(" and o.created_at < ?");
+            params.add(Timestamp.valueOf(filter.createdTo()));
+        }
+        sql.append(" order by o.id");
+
+        OrderAssembler assembler = new OrderAssembler(consumer);
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        }, assembler::processRow);
+        assembler.finish();
+    }
+
+    // Aynı siparişe ait ardışık join satırlarını doğrudan tek bir yanıtta toplar (entity oluşturulmaz)
+    private static final class OrderAssembler {
+        private final Consumer<OrderResponse> consumer;
+        private OrderResponse.Builder current;
+
+        private OrderAssembler(Consumer<OrderResponse> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || current.getId() != id) {
+                finish();
+                current = mapOrder(rs, id);
+            }
+            long productId = rs.getLong("product_id");
+            if (!rs.wasNull()) {
+                current.add(productId, rs.getInt("quantity"));
+            }
+        }
+
+        private void finish() {
+            if (current != null) {
+                consumer.accept(current.build());
+                current = null;
+            }
+        }
+
+        private static OrderResponse.Builder mapOrder(ResultSet rs, long id) throws SQLException {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            String paymentStatus = rs.getString("payment_status");
+            return new OrderResponse.Builder(id,
+                    rs.getObject("user_id", Long.class),
+                    rs.getObject("cart_id", Long.class),
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    updatedAt != null ? updatedAt.toLocalDateTime() : null,
+                    paymentStatus != null ? PaymentStatus.valueOf(paymentStatus) : null,
+                    rs.getBoolean("canceled"),
+                    PackedLineItems.wrap(rs.getBytes("line_items")));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.micro.order.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * orders.id dizisinden toplu ekleme için id ayırır.
+ * JPA'nın IDENTITY ile kullandığı aynı dizi kullanıldığından tekil kayıtlarla çakışma olmaz;
+ * toplu eklemede her sipariş için ayrı bir tur yerine tek sorgu atılır.
+ * Çağrılar arasında id havuzu tutulmaz: önceden ayrılmış id'ler sonradan kullanılsaydı, arada yazılan tekil
+ * siparişlerden küçük id'ler alır ve id üzerindeki keyset sayfalamada zaten geçilmiş sayfalara düşerdi.
+ */
+@Component
+public class OrderIdAllocator {
+
+    private static final String NEXT_IDS =
+            "select nextval(pg_get_serial_sequence('orders', 'id')) from generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Tam count adet yeni id; ekleme transaction'ı içinde çağrılır
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long[] allocate(int count) {
+        List<Long> values = jdbcTemplate.queryForList(NEXT_IDS, Long.class, count);
+        long[] ids = new long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = values.get(i);
+        }
+        return ids;
+    }
+}
@@ -1,11 +1,124 @@
 package com.micro.order.repository;
 
 import com.micro.order.entity.Order;
+import com.micro.order.util.PaymentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    // Kullanıcı bazlı siparişleri getir
+
+    // Yanıt projeksiyonu (bkz. OrderResponse.fromRows): entity yüklenmez, kalem başına bir satır döner
+    String RESPONSE_ROWS = "select o.id, o.userId, o.cartId, o.createdAt, o.updatedAt, o.paymentStatus, o.canceled,"
+            + " o.lineItems, p.productId, p.quantity from Order o left join o.products p";
+
+    // Kullanıcı bazlı siparişleri ürünleriyle birlikte tek sorguda getir
+    @EntityGraph(attributePaths = "products")
     List<Order> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Siparişi ürünleriyle birlikte tek sorguda getir
+    @EntityGraph(attributePaths = "products")
+    Optional<Order> findWithProductsById(Long id);
+
+    // Verilen id'lerdeki siparişleri ürünleriyle birlikte tek sorguda getir
+    @EntityGraph(attributePaths = "products")
+    List<Order> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // Okuma uçları için yanıt satırları (id sırasıyla)
+    @Query(RESPONSE_ROWS + " where o.id = :id")
+    List<Object[]> findResponseRowsById(@Param("id") Long id);
+
+    @Query(RESPONSE_ROWS + " where o.userId = :userId order by o.id")
+    List<Object[]> findResponseRowsByUserId(@Param("userId") Long userId);
+
+    @Query(RESPONSE_ROWS + " where o.id in :ids order by o.id")
+    List<Object[]> findResponseRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // id üzerinden keyset sayfalama: afterId'den büyük ilk sayfanın id'lerini getir.
+    // Ürünler koleksiyonu burada fetch edilmez; aksi halde LIMIT bellekte uygulanır.
+    @Query("select o.id from Order o where o.id > :afterId"
+            + " and (:paymentStatus is null or o.paymentStatus = :paymentStatus)"
+            + " and (:canceled is null or o.canceled = :canceled)"
+            + " and (:createdFrom is null or o.createdAt >= :createdFrom)"
+            + " and (:createdTo is null or o.createdAt < :createdTo)"
+            + " order by o.id")
+    List<Long> findPageIds(@Param("afterId") long afterId,
+                           @Param("paymentStatus") PaymentStatus paymentStatus,
+                           @Param("canceled") Boolean canceled,
+                           @Param("createdFrom") LocalDateTime createdFrom,
+                           @Param("createdTo") LocalDateTime createdTo,
+                           Pageable pageable);
+
+    // Toplu iptal için filtreye uyan, henüz iptal edilmemiş siparişlerin id'lerini keyset ile getir
+    @Query("select o.id from Order o where o.id > :afterId and o.canceled = false"
+            + " and (:userId is null or o.userId = :userId)"
+            + " and (:createdFrom is null or o.createdAt >= :createdFrom)"
+            + " and (:createdTo is null or o.createdAt < :createdTo)"
+            + " order by o.id")
+    List<Long> findCancelableIds(@Param("afterId") long afterId,
+                                 @Param("userId") Long userId,
+                                 @Param("createdFrom") LocalDateTime createdFrom,
+                                 @Param("createdTo") LocalDateTime createdTo,
+                                 Pageable pageable);
+
+    // İptal edilecek siparişleri id sırasıyla kilitle (id, user_id, payment_status); eşzamanlı iptaller aynı siparişi iki kez işlemez
+    @Query(value = "select id, user_id, payment_status from orders where id in (:ids) and canceled = false order by id for update",
+            nativeQuery = true)
+    List<Object[]> lockCancelable(@Param("ids") Collection<Long> ids);
+
+    // Verilen ödeme durumundaki siparişlerin ürün miktarlarını kullanıcı ve ürün bazında topla (userId, productId, toplam).
+    // Ürün id'si olmayan (eski) kalemler atlanır; paketli kalemler de aynı şekilde süzülür
+    @Query("select o.userId, p.productId, sum(p.quantity) from Order o join o.products p"
+            + " where o.id in :ids and o.paymentStatus = :paymentStatus and p.productId is not null"
+            + " group by o.userId, p.productId")
+    List<Object[]> sumProductQuantitiesByUser(@Param("ids") Collection<Long> ids,
+                                              @Param("paymentStatus") PaymentStatus paymentStatus);
+
+    // Kalemleri paketli saklanan (line_items), verilen ödeme durumundaki siparişler (userId, PackedLineItems)
+    @Query("select o.userId, o.lineItems from Order o"
+            + " where o.id in :ids and o.paymentStatus = :paymentStatus and o.lineItems is not null")
+    List<Object[]> findPackedLineItems(@Param("ids") Collection<Long> ids,
+                                       @Param("paymentStatus") PaymentStatus paymentStatus);
+
+    // Siparişleri tek UPDATE ile iptal edilmiş olarak işaretle
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.canceled = true, o.paymentStatus = :paymentStatus, o.updatedAt = :updatedAt,"
+            + " o.version = o.version + 1 where o.id in :ids")
+    int markCanceled(@Param("ids") Collection<Long> ids,
+                     @Param("paymentStatus") PaymentStatus paymentStatus,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Sepetin başarılı siparişi var mı (order_cart_claims)
+    @Query("select count(c) > 0 from OrderCartClaim c where c.cartId = :cartId")
+    boolean isCartClaimed(@Param("cartId") Long cartId);
+
+    // Verilen sepetlerden başarılı siparişi olanlar
+    @Query("select c.cartId from OrderCartClaim c where c.cartId in :cartIds")
+    List<Long> findClaimedCartIds(@Param("cartIds") Collection<Long> cartIds);
+
+    // İptal edilen siparişlerin sepetlerini serbest bırak
+    @Modifying
+    @Query("delete from OrderCartClaim c where c.orderId in :orderIds")
+    int releaseCarts(@Param("orderIds") Collection<Long> orderIds);
+
+    // Arşivlenecek siparişler: createdBefore'dan önce oluşturulmuş veya canceledBefore'dan önce iptal edilmiş (id ile keyset)
+    @Query("select o.id from Order o where o.id > :afterId"
+            + " and (o.createdAt < :createdBefore or (o.canceled = true and o.updatedAt < :canceledBefore))"
+            + " order by o.id")
+    List<Long> findArchivableIds(@Param("afterId") long afterId,
+                                 @Param("createdBefore") LocalDateTime createdBefore,
+                                 @Param("canceledBefore") LocalDateTime canceledBefore,
+                                 Pageable pageable);
+
+    // Arşivlenecek siparişleri kilitle; bu arada silinmiş olanlar dönmez
+    @Query(value = "select id from orders where id in (:ids) order by id for update", nativeQuery = true)
+    List<Long> lockForArchive(@Param("ids") Collection<Long> ids);
+}
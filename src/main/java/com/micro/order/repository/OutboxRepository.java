@@ -0,0 +1,21 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+    // Zamanı gelmiş mesajları kilitle; başka relay örneklerinin kilitlediği satırlar atlanır
+    // (dead letter satırlarının next_attempt_at değeri null olduğundan seçilmez)
+    @Query(value = "select * from order_outbox where next_attempt_at <= :now"
+            + " order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxMessage> lockDueMessages(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // En eski bekleyen mesajın oluşturulma zamanı (relay gecikmesi için; dead letter satırları hariç)
+    @Query("select min(m.createdAt) from OutboxMessage m where m.deadLetteredAt is null")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -0,0 +1,13 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.UserOrderSummary;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummary, Long> {
+    // Özeti ürün toplamlarıyla birlikte tek sorguda getir
+    @EntityGraph(attributePaths = "productQuantities")
+    Optional<UserOrderSummary> findWithProductsByUserId(Long userId);
+}
@@ -0,0 +1,192 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.LineItemPacker;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Kullanıcı özetlerini (order_user_summaries, order_user_product_totals) JDBC ile yazar.
+ * Artımlar tek satırlık upsert'lerle uygulanır; sayaçlar satır kilidi altında veritabanında toplandığından
+ * eşzamanlı siparişler birbirinin değişikliğini ezmez. PostgreSQL'de INSERT ... ON CONFLICT,
+ * diğer veritabanlarında (testlerde H2) standart MERGE kullanılır (H2'de greatest, boş değer içerirse boş döner).
+ */
+@Repository
+public class UserOrderSummaryWriter {
+
+    private static final String POSTGRES_UPSERT_SUMMARY = "insert into order_user_summaries"
+            + " (user_id, success_count, failed_count, canceled_count, last_order_at) values (?, ?, ?, ?, ?)"
+            + " on conflict (user_id) do update set"
+            + " success_count = order_user_summaries.success_count + excluded.success_count,"
+            + " failed_count = order_user_summaries.failed_count + excluded.failed_count,"
+            + " canceled_count = order_user_summaries.canceled_count + excluded.canceled_count,"
+            + " last_order_at = greatest(order_user_summaries.last_order_at, excluded.last_order_at)";
+    private static final String POSTGRES_UPSERT_PRODUCT = "insert into order_user_product_totals"
+            + " (user_id, product_id, quantity) values (?, ?, ?)"
+            + " on conflict (user_id, product_id) do update set"
+            + " quantity = order_user_product_totals.quantity + excluded.quantity";
+    private static final String MERGE_SUMMARY = "merge into order_user_summaries t"
+            + " using (select cast(? as bigint) as user_id, cast(? as bigint) as success_count,"
+            + " cast(? as bigint) as failed_count, cast(? as bigint) as canceled_count,"
+            + " cast(? as timestamp) as last_order_at) s on t.user_id = s.user_id"
+            + " when matched then update set success_count = t.success_count + s.success_count,"
+            + " failed_count = t.failed_count + s.failed_count, canceled_count = t.canceled_count + s.canceled_count,"
+            + " last_order_at = greatest(coalesce(t.last_order_at, s.last_order_at), coalesce(s.last_order_at, t.last_order_at))"
+            + " when not matched then insert (user_id, success_count, failed_count, canceled_count, last_order_at)"
+            + " values (s.user_id, s.success_count, s.failed_count, s.canceled_count, s.last_order_at)";
+    private static final String MERGE_PRODUCT = "merge into order_user_product_totals t"
+            + " using (select cast(? as bigint) as user_id, cast(? as bigint) as product_id,"
+            + " cast(? as bigint) as quantity) s on t.user_id = s.user_id and t.product_id = s.product_id"
+            + " when matched then update set quantity = t.quantity + s.quantity"
+            + " when not matched then insert (user_id, product_id, quantity) values (s.user_id, s.product_id, s.quantity)";
+    private static final String DELETE_EMPTY_PRODUCTS = "delete from order_user_product_totals"
+            + " where user_id = ? and quantity <= 0";
+
+    // Yeniden hesaplama: (afterUserId, lastUserId] aralığındaki kullanıcılar
+    private static final String DELETE_PRODUCT_RANGE = "delete from order_user_product_totals where user_id > ? and user_id <= ?";
+    private static final String DELETE_SUMMARY_RANGE = "delete from order_user_summaries where user_id > ? and user_id <= ?";
+    private static final String REBUILD_SUMMARY_RANGE = "insert into order_user_summaries"
+            + " (user_id, success_count, failed_count, canceled_count, last_order_at)"
+            + " select user_id,"
+            + " sum(case when payment_status = 'SUCCESS' then 1 else 0 end),"
+            + " sum(case when payment_status = 'FAILED' then 1 else 0 end),"
+            + " sum(case when payment_status = 'CANCELED' then 1 else 0 end),"
+            + " max(created_at)"
+            + " from orders where user_id > ? and user_id <= ? group by user_id";
+    private static final String REBUILD_PRODUCT_RANGE = "insert into order_user_product_totals (user_id, product_id, quantity)"
+            + " select o.user_id, p.product_id, sum(p.quantity) from orders o join order_products p on p.order_id = o.id"
+            + " where o.user_id > ? and o.user_id <= ? and o.payment_status = 'SUCCESS' and p.product_id is not null"
+            + " group by o.user_id, p.product_id";
+    private static final String PACKED_LINE_ITEMS_RANGE = "select user_id, line_items from orders"
+            + " where user_id > ? and user_id <= ? and payment_status = 'SUCCESS' and line_items is not null";
+    private static final String COUNT_SUMMARY_RANGE = "select count(*) from order_user_summaries where user_id > ? and user_id <= ?";
+    private static final String NEXT_USER_IDS = "select distinct user_id from orders where user_id > ?"
+            + " order by user_id fetch first ? rows only";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres; // Veritabanı türü ilk yazmada belirlenir; açılışta bağlantı açılmaz
+    private final Timer applyTimer;
+    private final Timer rebuildTimer;
+
+    public UserOrderSummaryWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applyTimer = timer(meterRegistry, "apply");
+        this.rebuildTimer = timer(meterRegistry, "rebuild");
+    }
+
+    // Artımları çağıranın transaction'ında uygula; özet satırı ürün satırlarından önce yazılır
+    public void apply(UserSummaryDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        applyTimer.record(() -> write(delta));
+    }
+
+    // afterUserId'den büyük, en fazla limit kadar farklı kullanıcı id'si (artan sırada)
+    public List<Long> nextUserIds(long afterUserId, int limit) {
+        return jdbcTemplate.queryForList(NEXT_USER_IDS, Long.class, afterUserId, limit);
+    }
+
+    // (afterUserId, lastUserId] aralığındaki özet sayısı
+    public int countSummaries(long afterUserId, long lastUserId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_SUMMARY_RANGE, Integer.class, afterUserId, lastUserId);
+        return count != null ? count : 0;
+    }
+
+    // (afterUserId, lastUserId] aralığındaki özetleri orders/order_products'tan baştan hesapla; yazılan özet sayısını döner
+    public int rebuild(long afterUserId, long lastUserId) {
+        return rebuildTimer.record(() -> {
+            jdbcTemplate.update(DELETE_PRODUCT_RANGE, afterUserId, lastUserId);
+            jdbcTemplate.update(DELETE_SUMMARY_RANGE, afterUserId, lastUserId);
+            int users = jdbcTemplate.update(REBUILD_SUMMARY_RANGE, afterUserId, lastUserId);
+            jdbcTemplate.update(REBUILD_PRODUCT_RANGE, afterUserId, lastUserId);
+            rebuildPackedProducts(afterUserId, lastUserId);
+            return users;
+        });
+    }
+
+    // Kalemleri paketli saklanan siparişler SQL ile toplanamaz; satırlar okunup burada toplanır
+    private void rebuildPackedProducts(long afterUserId, long lastUserId) {
+        Map<Long, Map<Long, Long>> totals = new TreeMap<>();
+        jdbcTemplate.query(PACKED_LINE_ITEMS_RANGE, rs -> {
+            long userId = rs.getLong("user_id");
+            for (OrderProduct product : LineItemPacker.unpack(rs.getBytes("line_items"))) {
+                if (product.getProductId() != null) {
+                    totals.computeIfAbsent(userId, id -> new TreeMap<>())
+                            .merge(product.getProductId(), (long) product.getQuantity(), Long::sum);
+                }
+            }
+        }, afterUserId, lastUserId);
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((userId, quantities) -> quantities.forEach((productId, quantity) ->
+                rows.add(new Object[]{userId, productId, quantity})));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertProduct(), rows);
+        }
+    }
+
+    private void write(UserSummaryDelta delta) {
+        List<Object[]> summaryRows = new ArrayList<>(delta.counts().size());
+        for (Map.Entry<Long, long[]> entry : delta.counts().entrySet()) {
+            long[] counts = entry.getValue();
+            LocalDateTime lastOrderAt = delta.lastOrderAt(entry.getKey());
+            summaryRows.add(new Object[]{entry.getKey(),
+                    counts[PaymentStatus.SUCCESS.ordinal()],
+                    counts[PaymentStatus.FAILED.ordinal()],
+                    counts[PaymentStatus.CANCELED.ordinal()],
+                    lastOrderAt != null ? Timestamp.valueOf(lastOrderAt) : null});
+        }
+        List<Object[]> productRows = new ArrayList<>();
+        delta.products().forEach((userId, quantities) -> quantities.forEach((productId, quantity) -> {
+            if (quantity != 0) {
+                productRows.add(new Object[]{userId, productId, quantity});
+            }
+        }));
+
+        jdbcTemplate.batchUpdate(upsertSummary(), summaryRows);
+        if (!productRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertProduct(), productRows);
+        }
+        // İptallerde sıfıra inen ürün satırları silinir
+        if (delta.quantitiesReduced()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY_PRODUCTS,
+                    delta.products().keySet().stream().map(userId -> new Object[]{userId}).toList());
+        }
+    }
+
+    private String upsertSummary() {
+        return isPostgres() ? POSTGRES_UPSERT_SUMMARY : MERGE_SUMMARY;
+    }
+
+    private String upsertProduct() {
+        return isPostgres() ? POSTGRES_UPSERT_PRODUCT : MERGE_PRODUCT;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String method) {
+        return Timer.builder("order.jdbc.invocations")
+                .tags("repository", "UserOrderSummaryWriter", "method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
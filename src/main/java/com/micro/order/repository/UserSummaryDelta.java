@@ -0,0 +1,95 @@
+package com.micro.order.repository;
+
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.util.PaymentStatus;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bir transaction'daki siparişlerin kullanıcı özetlerine etkisi.
+ * Değişiklikler kullanıcı (ve ürün) bazında birleştirilir; UserOrderSummaryWriter tek seferde uygular.
+ * Ürün miktarları yalnızca ödemesi alınmış siparişler için tutulur (stok da yalnızca onlar için düşülür).
+ * Ürün id'si olmayan (eski) kalemler, yeniden oluşturma sorgusundaki gibi ürün miktarlarına katılmaz.
+ */
+public class UserSummaryDelta {
+
+    // Satırlar kullanıcı id sırasıyla yazılır; eşzamanlı transaction'lar aynı sırada kilitleyip deadlock'a girmez
+    private final Map<Long, long[]> counts = new TreeMap<>(); // userId -> PaymentStatus sırasıyla sayaç değişimleri
+    private final Map<Long, LocalDateTime> lastOrderAt = new HashMap<>();
+    private final Map<Long, Map<Long, Long>> products = new TreeMap<>(); // userId -> productId -> miktar değişimi
+    private boolean quantitiesReduced;
+
+    // Yeni oluşturulan (ödeme durumu atanmış) sipariş
+    public UserSummaryDelta orderCreated(Order order) {
+        if (order.getUserId() == null) {
+            return this;
+        }
+        count(order.getUserId(), order.getPaymentStatus(), 1);
+        if (order.getCreatedAt() != null) {
+            lastOrderAt.merge(order.getUserId(), order.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        if (order.getPaymentStatus() == PaymentStatus.SUCCESS) {
+            for (OrderProduct product : order.getProducts()) {
+                addQuantity(order.getUserId(), product.getProductId(), product.getQuantity());
+            }
+        }
+        return this;
+    }
+
+    // previousStatus durumundaki sipariş iptal edildi; ürün iadesi productsReturned ile ayrıca bildirilir
+    public UserSummaryDelta orderCanceled(Long userId, PaymentStatus previousStatus) {
+        if (userId == null) {
+            return this;
+        }
+        count(userId, previousStatus, -1);
+        count(userId, PaymentStatus.CANCELED, 1);
+        return this;
+    }
+
+    // İptal edilen, ödemesi alınmış siparişlerin ürünleri
+    public UserSummaryDelta productsReturned(Long userId, Long productId, long quantity) {
+        if (userId != null) {
+            addQuantity(userId, productId, -quantity);
+            quantitiesReduced = true;
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return counts.isEmpty() && products.isEmpty();
+    }
+
+    Map<Long, long[]> counts() {
+        return counts;
+    }
+
+    LocalDateTime lastOrderAt(Long userId) {
+        return lastOrderAt.get(userId);
+    }
+
+    Map<Long, Map<Long, Long>> products() {
+        return products;
+    }
+
+    boolean quantitiesReduced() {
+        return quantitiesReduced;
+    }
+
+    private void count(Long userId, PaymentStatus status, int delta) {
+        if (status != null) {
+            counts.computeIfAbsent(userId, id -> new long[PaymentStatus.values().length])[status.ordinal()] += delta;
+        }
+    }
+
+    private void addQuantity(Long userId, Long productId, long quantity) {
+        if (productId == null) {
+            return;
+        }
+        counts.computeIfAbsent(userId, id -> new long[PaymentStatus.values().length]);
+        products.computeIfAbsent(userId, id -> new TreeMap<>()).merge(productId, quantity, Long::sum);
+    }
+}
@@ -0,0 +1,20 @@
+package com.micro.order.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Aynı sepet için başka bir sipariş işleniyor ve sepet kilidi süresinde alınamadı; istek tekrar denenebilir
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CartBusyException extends RuntimeException {
+
+    private final Long cartId;
+
+    public CartBusyException(Long cartId, String message) {
+        super(message);
+        this.cartId = cartId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+}
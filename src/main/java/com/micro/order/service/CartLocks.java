@@ -0,0 +1,114 @@
+package com.micro.order.service;
+
+import com.micro.order.util.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sepet bazında sipariş kilidi: aynı sepet için eşzamanlı sipariş istekleri bu örnekte sıraya girer.
+ * Kilitler sabit sayıda şeride (stripe) dağıtılır; yalnızca aynı şeride düşen sepetler birbirini bekler.
+ * Kilidi tekil sipariş istekleri tutar; toplu siparişler çok sayıda şeridi sepet istekleri boyunca tutmasın diye
+ * kilit almaz. Bu yarışları ve örnekler arası yarışları order_cart_claims tablosu (sepet başına tek başarılı sipariş) yakalar.
+ */
+@Component
+public class CartLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+    private final Counter contended;
+    private final Timer waitTimer;
+
+    public CartLocks(@Value("${order.cart-locks.stripes:1024}") int stripes,
+                     @Value("${order.cart-locks.timeout-ms:5000}") long timeoutMs,
+                     MeterRegistry meterRegistry) {
+        // Şerit sayısı ikinin kuvvetine yuvarlanır
+        int size = Integer.highestOneBit(Math.max(1, Math.min(stripes, 1 << 16)) * 2 - 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+        this.contended = Counter.builder("order.cart.lock.contended").register(meterRegistry);
+        this.waitTimer = Timer.builder("order.cart.lock.wait").register(meterRegistry);
+    }
+
+    // Sepetlerin kilitlerini şerit sırasıyla al (kilitlenme olmaz); süresinde alınamayanlar Held.isLocked ile anlaşılır.
+    // Kilitler Held kapatılınca bırakılır.
+    public Held lock(Collection<Long> cartIds, Deadline deadline) {
+        TreeMap<Integer, List<Long>> byStripe = new TreeMap<>();
+        for (Long cartId : cartIds) {
+            if (cartId != null) {
+                byStripe.computeIfAbsent(stripeOf(cartId), stripe -> new ArrayList<>(1)).add(cartId);
+            }
+        }
+        Held held = new Held(byStripe.size());
+        for (var entry : byStripe.entrySet()) {
+            ReentrantLock lock = stripes[entry.getKey()];
+            if (acquire(lock, deadline)) {
+                held.locks.add(lock);
+            } else {
+                held.unavailable.addAll(entry.getValue());
+            }
+        }
+        return held;
+    }
+
+    private boolean acquire(ReentrantLock lock, Deadline deadline) {
+        // Çekişme yoksa bekleme ve metrik maliyeti olmadan alınır
+        if (lock.tryLock()) {
+            return true;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        try {
+            return lock.tryLock(Math.max(0, Math.min(timeoutMs, deadline.remainingMillis())), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int stripeOf(long cartId) {
+        // Ardışık sepet id'leri şeritlere dağılsın diye karıştırılır
+        int hash = Long.hashCode(cartId) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    // Alınmış şerit kilitleri; try-with-resources ile bırakılır
+    public static final class Held implements AutoCloseable {
+
+        private final List<ReentrantLock> locks;
+        private final Set<Long> unavailable = new HashSet<>();
+
+        private Held(int size) {
+            this.locks = new ArrayList<>(size);
+        }
+
+        // Sepetin kilidi alındı mı (sepeti olmayan istekler için true)
+        public boolean isLocked(Long cartId) {
+            return cartId == null || !unavailable.contains(cartId);
+        }
+
+        @Override
+        public void close() {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+            locks.clear();
+        }
+    }
+}
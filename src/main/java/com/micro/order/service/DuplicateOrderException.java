@@ -0,0 +1,20 @@
+package com.micro.order.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Sepet için başarılı bir sipariş zaten var
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateOrderException extends RuntimeException {
+
+    private final Long cartId;
+
+    public DuplicateOrderException(Long cartId, String message) {
+        super(message);
+        this.cartId = cartId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.micro.order.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Aynı Idempotency-Key ile gelen önceki istek bekleme süresinde tamamlanmadı; istek aynı anahtarla tekrar denenebilir
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
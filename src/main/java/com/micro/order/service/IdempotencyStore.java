@@ -0,0 +1,141 @@
+package com.micro.order.service;
+
+import com.micro.order.entity.IdempotencyKey;
+import com.micro.order.repository.IdempotencyKeyRepository;
+import com.micro.order.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key başına işlemi en fazla bir kez çalıştırır ve sonucunu (sipariş id'si) saklar.
+ * Anahtarlar kullanıcı bazındadır (farklı kullanıcıların aynı anahtarı birbirinin siparişini döndürmez) ve isteğin
+ * özetiyle (fingerprint) birlikte saklanır; aynı anahtar farklı bir istekle tekrar kullanılırsa istek 422 ile reddedilir.
+ * Tamamlanan anahtarlar bellekte (TTL'li) tutulur; bellekte yoksa order_idempotency_keys tablosuna bakılır.
+ * Aynı anahtarla eşzamanlı gelen istekler işlemi tekrar çalıştırmaz, devam eden ilk çalıştırmanın sonucunu bekler;
+ * ilk çalıştırma bekleme süresinde bitmezse istek 503 ile (tekrar denenebilir) reddedilir.
+ * Başarısız çalıştırmalar saklanmaz; aynı anahtarla sonraki deneme işlemi yeniden çalıştırır.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyKeyRepository repository;
+    private final BoundedCache<String, Completed> completed;
+    private final Map<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final long waitTimeoutMs;
+
+    public IdempotencyStore(IdempotencyKeyRepository repository,
+                            @Value("${order.idempotency.max-keys:50000}") int maxKeys,
+                            @Value("${order.idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${order.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.completed = new BoundedCache<>(maxKeys, ttlMs);
+        this.ttlMs = ttlMs;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    // Kullanıcının anahtarı daha önce kullanıldıysa saklanan id'yi, kullanılmadıysa action'ın sonucunu döner.
+    // fingerprint isteği özetler; anahtar farklı bir istekle kullanılmışsa IdempotencyKeyMismatchException fırlar.
+    public Long execute(Long userId, String key, String fingerprint, Supplier<Long> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = scope(userId, key);
+        Completed result = completed.get(scopedKey);
+        if (result != null) {
+            return verify(result, key, fingerprint);
+        }
+
+        CompletableFuture<Completed> execution = new CompletableFuture<>();
+        CompletableFuture<Completed> existing = inFlight.putIfAbsent(scopedKey, execution);
+        if (existing != null) {
+            return verify(await(key, existing), key, fingerprint);
+        }
+        try {
+            result = completed.get(scopedKey); // Önceki çalıştırma get ile putIfAbsent arasında bitmiş olabilir
+            if (result == null) {
+                result = repository.findById(scopedKey).map(Completed::of).orElse(null);
+            }
+            if (result == null) {
+                result = runOnce(scopedKey, fingerprint, action);
+            }
+            completed.put(scopedKey, result);
+            execution.complete(result);
+            return verify(result, key, fingerprint);
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, execution);
+        }
+    }
+
+    // Siparişi oluşturan transaction içinde çağrılır; anahtar başka bir örnekte yazılmışsa transaction geri alınır
+    public void record(Long userId, String key, String fingerprint, Long orderId) {
+        repository.insert(scope(userId, key), fingerprint, orderId, LocalDateTime.now());
+    }
+
+    // TTL'i dolan anahtarları veritabanından sil (bellekteki kayıtlar kendiliğinden düşer)
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        repository.deleteCreatedBefore(LocalDateTime.now().minus(Duration.ofMillis(ttlMs)));
+    }
+
+    private Completed runOnce(String scopedKey, String fingerprint, Supplier<Long> action) {
+        try {
+            return new Completed(action.get(), fingerprint);
+        } catch (DataIntegrityViolationException e) {
+            // Aynı anahtarla başka bir örnek önce yazdı; onun sonucunu kullan
+            return repository.findById(scopedKey).map(Completed::of).orElseThrow(() -> e);
+        }
+    }
+
+    // Özeti olmayan kayıtlar (özetten önce yazılmış anahtarlar) her istekle eşleşir
+    private static Long verify(Completed result, String key, String fingerprint) {
+        if (result.fingerprint() != null && !Objects.equals(result.fingerprint(), fingerprint)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request: " + key);
+        }
+        return result.orderId();
+    }
+
+    private static String scope(Long userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private Completed await(String key, CompletableFuture<Completed> execution) {
+        try {
+            return execution.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for request with Idempotency-Key: " + key, e);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Request with Idempotency-Key is still in progress: " + key, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        }
+    }
+
+    // Tamamlanan çalıştırmanın sonucu ve isteğin özeti
+    private record Completed(Long orderId, String fingerprint) {
+        static Completed of(IdempotencyKey key) {
+            return new Completed(key.getOrderId(), key.getFingerprint());
+        }
+    }
+}
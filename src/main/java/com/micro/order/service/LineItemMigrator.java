@@ -0,0 +1,54 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.LineItemMigrationResult;
+import com.micro.order.repository.LineItemMigrationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mevcut siparişlerin kalemlerini order_products tablosundan orders.line_items kolonuna taşır.
+ * Siparişler id sırasıyla parçalar halinde, her parça kendi transaction'ında işlenir; iş yarıda kalırsa
+ * tekrar çalıştırıldığında paketlenmemiş siparişlerden devam eder. Okumalar iki biçimi de desteklediğinden
+ * uygulama çalışırken yapılabilir; yeni siparişlerin de paketli yazılması için order.line-items.storage=packed olmalıdır.
+ */
+@Service
+public class LineItemMigrator {
+
+    private final LineItemMigrationRepository migrationRepository;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public LineItemMigrator(LineItemMigrationRepository migrationRepository,
+                            @Value("${order.line-items.migration.chunk-size:500}") int chunkSize) {
+        this.migrationRepository = migrationRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    public LineItemMigrationResult migrate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Line item migration is already running");
+        }
+        long start = System.nanoTime();
+        try {
+            int chunks = 0;
+            long orders = 0;
+            long afterId = 0L;
+            List<Long> ids;
+            do {
+                ids = migrationRepository.nextUnpackedIds(afterId, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                orders += migrationRepository.pack(ids);
+                chunks++;
+                afterId = ids.get(ids.size() - 1);
+            } while (ids.size() == chunkSize);
+            return new LineItemMigrationResult(chunks, orders, (System.nanoTime() - start) / 1_000_000L);
+        } finally {
+            running.set(false);
+        }
+    }
+}
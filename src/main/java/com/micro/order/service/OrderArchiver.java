@@ -0,0 +1,92 @@
+package com.micro.order.service;
+
+import com.micro.order.entity.Order;
+import com.micro.order.repository.OrderArchiveRepository;
+import com.micro.order.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eski ve iptal edilmiş siparişleri canlı tablolardan order_archive'e taşır.
+ * Siparişler id sırasıyla parça parça işlenir; her parça kilitlenir, arşive yazılır ve silinir (tek transaction).
+ * Kullanıcı özetleri arşivlemede değişmez; özet yeniden hesaplanırken arşiv de dahil edilir.
+ */
+@Component
+public class OrderArchiver {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderCache orderCache;
+    private final long retentionDays;
+    private final long canceledRetentionDays;
+    private final int chunkSize;
+
+    private final AtomicLong archivedOrders = new AtomicLong();
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         OrderArchiveRepository orderArchiveRepository,
+                         TransactionTemplate transactionTemplate,
+                         OrderCache orderCache,
+                         @Value("${order.archive.retention-days:365}") long retentionDays,
+                         @Value("${order.archive.canceled-retention-days:30}") long canceledRetentionDays,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderArchiveRepository = orderArchiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.orderCache = orderCache;
+        this.retentionDays = retentionDays;
+        this.canceledRetentionDays = canceledRetentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDateTime now = LocalDateTime.now();
+        archive(now.minusDays(retentionDays), now.minusDays(canceledRetentionDays));
+    }
+
+    // createdBefore'dan önce oluşturulmuş veya canceledBefore'dan önce iptal edilmiş siparişleri taşı; taşınan sayıyı döner
+    public long archive(LocalDateTime createdBefore, LocalDateTime canceledBefore) {
+        long moved = 0;
+        long afterId = 0L;
+        List<Long> ids;
+        do {
+            ids = orderRepository.findArchivableIds(afterId, createdBefore, canceledBefore, PageRequest.ofSize(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            moved += archiveChunk(ids);
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == chunkSize);
+        archivedOrders.addAndGet(moved);
+        return moved;
+    }
+
+    public long getArchivedOrderCount() {
+        return archivedOrders.get();
+    }
+
+    private int archiveChunk(List<Long> ids) {
+        List<Order> orders = transactionTemplate.execute(status -> {
+            List<Long> locked = orderRepository.lockForArchive(ids);
+            if (locked.isEmpty()) {
+                return List.<Order>of();
+            }
+            List<Order> chunk = orderRepository.findByIdInOrderByIdAsc(locked);
+            orderArchiveRepository.archive(chunk, LocalDateTime.now());
+            return chunk;
+        });
+        for (Order order : orders) {
+            orderCache.invalidate(order.getId(), order.getUserId());
+        }
+        return orders.size();
+    }
+}
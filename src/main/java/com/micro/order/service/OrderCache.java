@@ -0,0 +1,140 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * OrderRepository önündeki okuma önbelleği: sipariş id'sine ve kullanıcı id'sine göre.
+ * Değerler değişmez OrderResponse kayıtlarıdır ve olduğu gibi döndürülür; createOrder/cancelOrder ilgili kayıtları geçersiz kılar.
+ * Geçersiz kılınan sipariş ve kullanıcılar read-your-writes süresi boyunca işaretli kalır; bu sürede okumalar
+ * replika yerine birincil veritabanından yapılır (bkz. ReadReplica). Bu işaretler yalnızca bu örnekteki yazmaları
+ * görür; başka bir örnekte yazan istemci için istemcinin taşıdığı son yazma zamanı (isClientWriteRecent) kullanılır.
+ * Okuyucular veritabanından okumadan önce anahtarın sürümünü alır ve değeri bu sürümle yazar; okuma sürerken anahtar
+ * geçersiz kılındıysa (eski veri okunmuş olabilir) değer önbelleğe yazılmaz. Sürümler sabit sayıda şeritte tutulur;
+ * aynı şeride düşen başka bir anahtarın geçersiz kılınması yalnızca bir yazmayı gereksiz yere atlatır.
+ */
+@Component
+public class OrderCache {
+
+    private static final int RECENT_WRITES = 100_000;
+    private static final int VERSION_STRIPES = 4096; // İkinin kuvveti
+
+    private final BoundedCache<Long, OrderResponse> byId;
+    private final BoundedCache<Long, List<OrderResponse>> byUserId;
+    // Son yazmalar; kayıtlar küçük olduğundan sınır geniş tutulur (taşarsa en eski işaret erken düşer)
+    private final BoundedCache<Long, Boolean> recentOrders;
+    private final BoundedCache<Long, Boolean> recentUsers;
+    // Şerit başına geçersiz kılma sayısı
+    private final AtomicLongArray orderVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLongArray userVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final long readYourWritesMs;
+
+    public OrderCache(@Value("${order.cache.max-orders:10000}") int maxOrders,
+                      @Value("${order.cache.max-users:2000}") int maxUsers,
+                      @Value("${order.cache.ttl-ms:30000}") long ttlMs,
+                      @Value("${order.datasource.replica.read-your-writes-ms:2000}") long readYourWritesMs) {
+        this.byId = new BoundedCache<>(maxOrders, ttlMs);
+        this.byUserId = new BoundedCache<>(maxUsers, ttlMs);
+        this.recentOrders = new BoundedCache<>(RECENT_WRITES, readYourWritesMs);
+        this.recentUsers = new BoundedCache<>(RECENT_WRITES, readYourWritesMs);
+        this.readYourWritesMs = readYourWritesMs;
+    }
+
+    // Önbellekte yoksa null döner
+    public OrderResponse getOrder(Long id) {
+        return byId.get(id);
+    }
+
+    // Siparişin sürümü; veritabanından okumadan önce alınıp putOrder'a verilir
+    public long orderVersion(Long id) {
+        return orderVersions.get(stripeOf(id));
+    }
+
+    // Okuma version alındıktan sonra sipariş geçersiz kılındıysa değer yazılmaz
+    public void putOrder(OrderResponse order, long version) {
+        int stripe = stripeOf(order.id());
+        if (orderVersions.get(stripe) != version) {
+            return;
+        }
+        byId.put(order.id(), order);
+        // Kontrol ile yazma arasında geçersiz kılındıysa yazılan eski değer geri alınır
+        if (orderVersions.get(stripe) != version) {
+            byId.invalidate(order.id());
+        }
+    }
+
+    // Önbellekte yoksa null döner
+    public List<OrderResponse> getUserOrders(Long userId) {
+        return byUserId.get(userId);
+    }
+
+    // Kullanıcı listesinin sürümü; veritabanından okumadan önce alınıp putUserOrders'a verilir
+    public long userOrdersVersion(Long userId) {
+        return userVersions.get(stripeOf(userId));
+    }
+
+    // Okuma version alındıktan sonra kullanıcının siparişleri değiştiyse liste yazılmaz
+    public void putUserOrders(Long userId, List<OrderResponse> orders, long version) {
+        int stripe = stripeOf(userId);
+        if (userVersions.get(stripe) != version) {
+            return;
+        }
+        byUserId.put(userId, List.copyOf(orders));
+        if (userVersions.get(stripe) != version) {
+            byUserId.invalidate(userId);
+        }
+    }
+
+    // Sipariş değiştiğinde hem kendisini hem kullanıcının listesini geçersiz kıl
+    public void invalidate(Long orderId, Long userId) {
+        // Sürüm önbellekten silmeden önce artırılır; böylece eşzamanlı bir okuyucu ya yazmaz ya da yazdığını geri alır
+        if (orderId != null) {
+            orderVersions.incrementAndGet(stripeOf(orderId));
+            byId.invalidate(orderId);
+            recentOrders.put(orderId, Boolean.TRUE);
+        }
+        if (userId != null) {
+            userVersions.incrementAndGet(stripeOf(userId));
+            byUserId.invalidate(userId);
+            recentUsers.put(userId, Boolean.TRUE);
+        }
+    }
+
+    // Sipariş read-your-writes süresi içinde değişti mi (replikada henüz görünmeyebilir)
+    public boolean isOrderRecentlyWritten(Long orderId) {
+        return recentOrders.get(orderId) != null;
+    }
+
+    // Kullanıcının siparişleri read-your-writes süresi içinde değişti mi
+    public boolean isUserRecentlyWritten(Long userId) {
+        return recentUsers.get(userId) != null;
+    }
+
+    // İstemcinin bildirdiği son yazma zamanı (epoch ms) read-your-writes süresi içinde mi. Örnekler arası saat farkı
+    // için gelecekteki zamanlar da aynı süre kadar kabul edilir
+    public boolean isClientWriteRecent(Long lastWriteAt) {
+        if (lastWriteAt == null) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - lastWriteAt;
+        return age > -readYourWritesMs && age < readYourWritesMs;
+    }
+
+    private static int stripeOf(Long key) {
+        int hash = Long.hashCode(key) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    public BoundedCache<Long, OrderResponse> getOrderCache() {
+        return byId;
+    }
+
+    public BoundedCache<Long, List<OrderResponse>> getUserOrdersCache() {
+        return byUserId;
+    }
+}
@@ -0,0 +1,261 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.OrderChangePage;
+import com.micro.order.entity.OrderChangeEvent;
+import com.micro.order.repository.OrderChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sipariş değişiklik akışı: order_change_events tablosundaki olayları sıra numarasıyla istemcilere sunar.
+ * Tablo periyodik okunur; yayınlanan son olaylar sınırlı bir bellek kuyruğunda (tail) tutulur ve bekleyen
+ * long-poll istekleri yeni olay geldiğinde tamamlanır. Kuyruğun gerisinde kalan istemciler veritabanından okunur.
+ * <p>
+ * Sıra numaraları eklenirken verilir ama transaction'lar farklı sırada commit edilebilir. Bu yüzden bir boşluk
+ * görüldüğünde gapTimeoutMs kadar beklenir; süre dolarsa boşluk atlanır ama kaybedilmez: atlanan sıra numaraları
+ * lateWindowMs boyunca her turda yeniden aranır. Bu sürede commit edilen (geç gelen) olay yeni bir sıra numarasıyla
+ * akışın sonuna taşınır ve böylece cursor'ı boşluğu geçmiş istemcilere de verilir. Açılışta tablonun sonundan
+ * başlanırken son olaylar arasındaki boşluklar (o an süren transaction'lar) da aynı şekilde izlenir.
+ * İstemcilere yalnızca yayınlanmış (highWater'a kadar) olaylar verildiğinden cursor'ın gerisinde olay kalmaz;
+ * lateWindowMs'ten daha uzun süren bir transaction'ın olayı ise verilmez.
+ */
+@Component
+public class OrderChangeFeed {
+
+    // İzlenen en fazla atlanmış sıra numarası; aşılırsa en eskiler bırakılır
+    private static final int MAX_SKIPPED = 10_000;
+
+    private final OrderChangeRepository orderChangeRepository;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long lateWindowMs;
+    private final long maxWaitMs;
+    private final long retentionHours;
+
+    // Yayınlanmış son olaylar; sıra numarası artan halkalı dizi
+    private final OrderChangeEvent[] tail;
+    private int tailStart;
+    private int tailCount;
+
+    private volatile long highWater = -1; // Yayınlanmış en büyük sıra numarası; -1: henüz okunmadı
+    private long gapSeenAt;               // Bekletilen boşluğun ilk görüldüğü an (ns); 0: boşluk yok
+    // Atlanan sıra numarası -> atlandığı an (ns); atlanma sırasıyla, yalnızca poll iş parçacığında kullanılır
+    private final Map<Long, Long> skipped = new LinkedHashMap<>();
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    public OrderChangeFeed(OrderChangeRepository orderChangeRepository,
+                           @Value("${order.feed.tail-size:10000}") int tailSize,
+                           @Value("${order.feed.batch-size:500}") int batchSize,
+                           @Value("${order.feed.gap-timeout-ms:5000}") long gapTimeoutMs,
+                           @Value("${order.feed.late-window-ms:600000}") long lateWindowMs,
+                           @Value("${order.feed.max-wait-ms:25000}") long maxWaitMs,
+                           @Value("${order.feed.retention-hours:72}") long retentionHours) {
+        this.orderChangeRepository = orderChangeRepository;
+        this.tail = new OrderChangeEvent[tailSize];
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.lateWindowMs = lateWindowMs;
+        this.maxWaitMs = maxWaitMs;
+        this.retentionHours = retentionHours;
+    }
+
+    // Yeni commit edilen olayları sırayla yayınla ve bekleyen istemcileri uyandır
+    @Scheduled(fixedDelayString = "${order.feed.poll-interval-ms:100}")
+    public void poll() {
+        if (highWater < 0) {
+            // Başlangıçta mevcut olaylar bellek kuyruğuna alınmaz; geride kalan istemciler veritabanından okur.
+            // Sondaki olaylar arasındaki boşluklar süren transaction'lar olabilir; geç gelirlerse taşınır.
+            long max = orderChangeRepository.maxSequence();
+            long expected = Math.max(0, max - Math.max(batchSize, tail.length)) + 1;
+            for (long sequence : orderChangeRepository.findSequenceIdsAfter(expected - 1)) {
+                skipRange(expected, sequence);
+                expected = sequence + 1;
+            }
+            highWater = max;
+        }
+        recheckSkipped();
+        boolean published = false;
+        List<OrderChangeEvent> batch;
+        do {
+            batch = orderChangeRepository.findAfter(highWater, Long.MAX_VALUE, batchSize);
+            int accepted = accept(batch);
+            published |= accepted > 0;
+            if (accepted < batch.size()) {
+                break;
+            }
+        } while (batch.size() == batchSize);
+        if (published) {
+            wakeUp();
+        }
+    }
+
+    // cursor'dan sonraki en fazla limit olay; cursor null ise akışın şu anki sonundan başlar
+    public OrderChangePage read(Long cursor, int limit) {
+        limit = Math.max(1, Math.min(limit, batchSize));
+        long upTo = highWater;
+        long after = cursor != null ? cursor : Math.max(upTo, 0);
+        if (after >= upTo) {
+            return new OrderChangePage(List.of(), after, false);
+        }
+        List<OrderChangeEvent> fromTail = readTail(after, limit);
+        if (fromTail != null) {
+            return page(fromTail, after, false);
+        }
+        List<OrderChangeEvent> events = orderChangeRepository.findAfter(after, upTo, limit);
+        Long oldest = orderChangeRepository.minSequence();
+        return page(events, after, oldest != null && oldest > after + 1);
+    }
+
+    // Long-poll: cursor'dan sonra olay varsa hemen, yoksa yeni olay geldiğinde veya waitMs dolunca tamamlanır
+    public CompletableFuture<OrderChangePage> await(Long cursor, int limit, long waitMs) {
+        long after = cursor != null ? cursor : Math.max(highWater, 0);
+        OrderChangePage page = read(after, limit);
+        if (!page.changes().isEmpty() || waitMs <= 0) {
+            return CompletableFuture.completedFuture(page);
+        }
+        Waiter waiter = new Waiter(after, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        // Kayıt sırasında yayınlanan olaylar kaçırılmasın
+        if (highWater > after) {
+            waiters.remove(waiter);
+            return CompletableFuture.completedFuture(read(after, limit));
+        }
+        return waiter.result()
+                .completeOnTimeout(page, Math.min(waitMs, maxWaitMs), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> waiters.remove(waiter));
+    }
+
+    // Saklama süresi dolan olayları sil
+    @Scheduled(cron = "${order.feed.prune-cron:0 15 * * * *}")
+    public int prune() {
+        return orderChangeRepository.deleteBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    public long getHighWater() {
+        return Math.max(highWater, 0);
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    // Ardışık olayları yayınla; bekleme süresi dolmamış bir boşlukta dur. Yayınlanan olay sayısını döner.
+    private int accept(List<OrderChangeEvent> batch) {
+        int accepted = 0;
+        for (OrderChangeEvent event : batch) {
+            if (event.getSequence() != highWater + 1) {
+                long now = System.nanoTime();
+                if (gapSeenAt == 0) {
+                    gapSeenAt = now;
+                }
+                if (now - gapSeenAt < TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs)) {
+                    return accepted;
+                }
+                skipRange(highWater + 1, event.getSequence());
+            }
+            gapSeenAt = 0;
+            append(event);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    // [from, to) aralığındaki sıra numaralarını geç gelme ihtimaline karşı izlemeye al
+    private void skipRange(long from, long to) {
+        long now = System.nanoTime();
+        for (long sequence = Math.max(from, to - MAX_SKIPPED); sequence < to; sequence++) {
+            skipped.put(sequence, now);
+        }
+        Iterator<Long> oldest = skipped.keySet().iterator();
+        while (skipped.size() > MAX_SKIPPED) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    // Süresi dolmayan atlanmış sıra numaralarından commit edilmiş olanları akışın sonuna taşı; taşınan olaylar
+    // aynı turda yeni sıra numaralarıyla yayınlanır
+    private void recheckSkipped() {
+        long expiredBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(lateWindowMs);
+        Iterator<Long> skippedAt = skipped.values().iterator();
+        while (skippedAt.hasNext() && skippedAt.next() - expiredBefore < 0) {
+            skippedAt.remove();
+        }
+        List<Long> sequences = new ArrayList<>(skipped.keySet());
+        for (int from = 0; from < sequences.size(); from += batchSize) {
+            List<Long> chunk = sequences.subList(from, Math.min(sequences.size(), from + batchSize));
+            for (OrderChangeEvent late : orderChangeRepository.findSequences(chunk)) {
+                skipped.remove(late.getSequence());
+                orderChangeRepository.resequence(late);
+            }
+        }
+    }
+
+    private synchronized void append(OrderChangeEvent event) {
+        if (tail.length > 0) {
+            if (tailCount == tail.length) {
+                tailStart = (tailStart + 1) % tail.length;
+                tailCount--;
+            }
+            tail[(tailStart + tailCount) % tail.length] = event;
+            tailCount++;
+        }
+        highWater = event.getSequence();
+    }
+
+    // Bellek kuyruğundan oku; cursor kuyruğun gerisindeyse null döner
+    private synchronized List<OrderChangeEvent> readTail(long after, int limit) {
+        if (tailCount == 0 || after < at(0).getSequence() - 1) {
+            return null;
+        }
+        // after'dan büyük ilk olay (ikili arama)
+        int low = 0;
+        int high = tailCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (at(mid).getSequence() <= after) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<OrderChangeEvent> events = new ArrayList<>(Math.min(limit, tailCount - low));
+        for (int i = low; i < tailCount && events.size() < limit; i++) {
+            events.add(at(i));
+        }
+        return events;
+    }
+
+    private OrderChangeEvent at(int index) {
+        return tail[(tailStart + index) % tail.length];
+    }
+
+    private void wakeUp() {
+        for (Waiter waiter : waiters) {
+            OrderChangePage page = read(waiter.cursor(), waiter.limit());
+            if (!page.changes().isEmpty()) {
+                waiter.result().complete(page);
+            }
+        }
+    }
+
+    private static OrderChangePage page(List<OrderChangeEvent> events, long after, boolean truncated) {
+        long cursor = events.isEmpty() ? after : events.get(events.size() - 1).getSequence();
+        return new OrderChangePage(events, cursor, truncated);
+    }
+
+    private record Waiter(long cursor, int limit, CompletableFuture<OrderChangePage> result) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.micro.order.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * orders tablosunun aylık partition'larını önceden oluşturur (yalnızca PostgreSQL).
+ * Bulunulan ay ve sonraki months-ahead ay için partition yoksa eklenir; böylece yeni satırlar
+ * default partition'a düşmez (default partition'da satır varken o aralığın partition'ı eklenemez).
+ */
+@Component
+public class OrderPartitionManager {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private volatile Boolean partitioned;
+
+    public OrderPartitionManager(JdbcTemplate jdbcTemplate,
+                                 @Value("${order.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    // Uygulama açılışında ve ardından periyodik olarak çalışır
+    @Scheduled(fixedDelayString = "${order.partitions.check-interval-ms:3600000}")
+    public void ensurePartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            jdbcTemplate.execute("create table if not exists orders_p" + month.format(SUFFIX)
+                    + " partition of orders for values from ('" + from + "') to ('" + to + "')");
+        }
+    }
+
+    // orders PostgreSQL'de partitioned tablo mu (testlerdeki H2 şeması değildir)
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                    return false;
+                }
+                Boolean result = jdbcTemplate.queryForObject(
+                        "select exists (select 1 from pg_partitioned_table where partrelid = to_regclass('orders'))",
+                        Boolean.class);
+                return Boolean.TRUE.equals(result);
+            });
+        }
+        return partitioned;
+    }
+}
@@ -1,22 +1,73 @@
 package com.micro.order.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.LogPublisher;
 import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.dto.BatchCancelProgress;
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.BatchOrderResult;
 import com.micro.order.dto.CancelOrderRequest;
+import com.micro.order.dto.CartRequest;
 import com.micro.order.dto.CartSchema;
 import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderPage;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.dto.StockUpdateMessage;
 import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderChangeEvent;
 import com.micro.order.entity.OrderProduct;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.CartClaimRepository;
+import com.micro.order.repository.LineItemStorage;
+import com.micro.order.repository.OrderBatchRepository;
+import com.micro.order.repository.OrderChangeRepository;
+import com.micro.order.repository.OrderExportRepository;
 import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.repository.UserSummaryDelta;
+import com.micro.order.util.Deadline;
+import com.micro.order.util.OrderChangeType;
+import com.micro.order.util.PackedLineItems;
 import com.micro.order.util.PaymentStatus;
-import jakarta.transaction.Transactional;
+import com.micro.order.util.ReadReplica;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,169 +76,666 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final RabbitMQClient rabbitMQClient;
     private final ObjectMapper objectMapper;
-
-    private static final String LOG_QUEUE = "log_service_queue";
+    private final LogPublisher logPublisher;
+    private final OrderExportRepository orderExportRepository;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderCache orderCache;
+    private final MeterRegistry meterRegistry;
+    private final IdempotencyStore idempotencyStore;
+    private final UserOrderSummaryWriter userSummaryWriter;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderChangeRepository orderChangeRepository;
+    private final LineItemStorage lineItemStorage;
+    private final CartLocks cartLocks;
+    private final CartClaimRepository cartClaimRepository;
+    private final Map<PaymentStatus, Counter> paymentCounters = new ConcurrentHashMap<>();
+
+    private static final String CART_QUEUE = "cart_service_queue";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+    // Bir sipariş isteğindeki tüm RPC'lerin toplam süre sınırı
+    private static final long REQUEST_DEADLINE_MS = 10_000;
+    private static final int CANCEL_CHUNK_SIZE = 500;
+    // Eşzamanlı güncelleme (iyimser kilit) hatasında tek sipariş iptalinin deneme sayısı
+    private static final int MAX_CANCEL_ATTEMPTS = 3;
 
     // Yeni bir sipariş oluştur
     public Order createOrder(CreateOrderRequest request) {
-        logToService("INFO", "Create order process started for userId: " + request.getUserId() + ", cartId: " + request.getCartId());
+        return createOrder(request, null);
+    }
 
-        // RabbitMQ üzerinden Cart Service'ten sepet bilgilerini al
-        CartSchema cart = getCartById(request.getCartId());
-        if (cart == null || cart.getProducts().isEmpty()) {
-            logToService("ERROR", "Cart is empty or not found for cartId: " + request.getCartId());
-            throw new RuntimeException("Cart is empty or not found for cartId: " + request.getCartId());
+    // Idempotency-Key ile sipariş oluştur: aynı anahtarla tekrarlanan istekler sepet/ödeme/stok adımlarını
+    // yeniden çalıştırmaz, ilk istekte oluşturulan siparişi döner
+    public Order createOrder(CreateOrderRequest request, String idempotencyKey) {
+        Deadline deadline = Deadline.after(REQUEST_DEADLINE_MS);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(request, null, deadline);
+        }
+        Order[] created = new Order[1];
+        String fingerprint = fingerprintOf(request.getUserId(), request.getCartId());
+        Long orderId = idempotencyStore.execute(request.getUserId(), idempotencyKey, fingerprint, () -> {
+            created[0] = placeOrder(request, idempotencyKey, deadline);
+            return created[0].getId();
+        });
+        if (created[0] != null) {
+            return created[0];
         }
+        logToService("INFO", "Returning stored order " + orderId + " for repeated Idempotency-Key");
+        return orderRepository.findWithProductsById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+    }
 
-        // cartId doğrulaması
-        if (!cart.getUserId().equals(request.getUserId())) {
-            logToService("ERROR", "Cart does not belong to userId: " + request.getUserId());
-            throw new RuntimeException("Cart does not belong to userId: " + request.getUserId());
+    // Aynı sepet için eşzamanlı istekler sepet kilidinde sıraya girer; kilit süresinde alınamazsa istek tekrar
+    // denenebilir (503) olarak reddedilir. Sepetin başarılı siparişi varsa sepet okunmadan ve ödeme alınmadan reddedilir
+    private Order placeOrder(CreateOrderRequest request, String idempotencyKey, Deadline deadline) {
+        logToService("INFO", "Create order process started for userId: " + request.getUserId() + ", cartId: " + request.getCartId());
+        try (CartLocks.Held held = cartLocks.lock(Collections.singletonList(request.getCartId()), deadline)) {
+            if (!held.isLocked(request.getCartId())) {
+                logToService("WARN", "Cart lock timed out for cartId: " + request.getCartId());
+                throw new CartBusyException(request.getCartId(), "Another order for cartId: " + request.getCartId() + " is in progress, retry later");
+            }
+            if (request.getCartId() != null && orderRepository.isCartClaimed(request.getCartId())) {
+                logToService("WARN", "Cart already has a successful order, cartId: " + request.getCartId());
+                throw new DuplicateOrderException(request.getCartId(), "Cart already has a successful order, cartId: " + request.getCartId());
+            }
+            return placeLockedOrder(request, idempotencyKey, deadline);
         }
+    }
 
-        Order order = new Order();
-        order.setUserId(request.getUserId());
-        order.setCartId(request.getCartId());
-        order.setCreatedAt(LocalDateTime.now());
-        order.setProducts(cart.getProducts().stream()
-                .map(product -> {
-                    OrderProduct orderProduct = new OrderProduct();
-                    orderProduct.setProductId(product.getId());
-                    orderProduct.setQuantity(product.getAmount());
-                    return orderProduct;
-                }).toList());
+    private Order placeLockedOrder(CreateOrderRequest request, String idempotencyKey, Deadline deadline) {
+        // RabbitMQ üzerinden Cart Service'ten sepet bilgilerini al
+        CartSchema cart = getCartById(request.getCartId(), deadline);
+        Order order = buildOrder(request, cart);
 
         // Ödeme işlemi
         if (getRandomBoolean()) {
             order.setPaymentStatus(PaymentStatus.SUCCESS);
-            clearCart(request.getCartId()); // Sepeti temizle
-            updateProductStock(order.getProducts(), "decrease_stock"); // Stokları azalt
-            logToService("INFO", "Order created successfully for userId: " + request.getUserId() + ", cartId: " + request.getCartId());
         } else {
             order.setPaymentStatus(PaymentStatus.FAILED);
+        }
+        countPayment(order.getPaymentStatus());
+
+        // Sipariş ve yan etkileri (sepet temizleme, stok azaltma) aynı transaction'da outbox'a yazılır.
+        // Diğer bütünlük ihlalleri (ör. başka örneğin yazdığı Idempotency-Key) olduğu gibi IdempotencyStore'a iletilir.
+        lineItemStorage.prepare(order);
+        Order savedOrder = transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(order);
+            if (saved.getPaymentStatus() == PaymentStatus.SUCCESS) {
+                if (saved.getCartId() != null
+                        && !cartClaimRepository.claim(Collections.singletonMap(saved.getCartId(), saved.getId())).contains(saved.getCartId())) {
+                    // Başka bir örnek aynı sepet için aynı anda başarılı sipariş yazdı; transaction geri alınır
+                    logToService("ERROR", "Duplicate successful order rejected for cartId: " + request.getCartId());
+                    throw new DuplicateOrderException(request.getCartId(), "Cart already has a successful order, cartId: " + request.getCartId());
+                }
+                outboxRepository.saveAll(sideEffectsOf(saved));
+            }
+            if (idempotencyKey != null) {
+                idempotencyStore.record(request.getUserId(), idempotencyKey,
+                        fingerprintOf(request.getUserId(), request.getCartId()), saved.getId());
+            }
+            userSummaryWriter.apply(new UserSummaryDelta().orderCreated(saved));
+            orderChangeRepository.append(List.of(changeOf(OrderChangeType.CREATED, saved)));
+            return saved;
+        });
+
+        orderCache.invalidate(savedOrder.getId(), request.getUserId());
+
+        if (order.getPaymentStatus() == PaymentStatus.SUCCESS) {
+            logToService("INFO", "Order created successfully for userId: " + request.getUserId() + ", cartId: " + request.getCartId());
+        } else {
             logToService("WARN", "Order creation failed for userId: " + request.getUserId() + ", cartId: " + request.getCartId());
         }
+        return savedOrder;
+    }
+
+
+    // Çok sayıda siparişi toplu oluştur; her kalem için ayrı sonuç döner
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        return createOrders(requests, Collections.nCopies(requests.size(), null));
+    }
+
+    // Toplu oluştur; idempotencyKeys her kalem için (boş olabilir) anahtardır ve yazılan siparişle aynı transaction'da
+    // kaydedilir, böylece aynı anahtarla tekrarlanan tekil istek siparişi yeniden oluşturmaz
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests, List<String> idempotencyKeys) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size exceeds limit of " + MAX_BATCH_SIZE + ": " + requests.size());
+        }
+        logToService("INFO", "Batch order creation started for " + requests.size() + " orders");
+
+        // Toplu siparişler sepet kilidi tutmaz (sepet istekleri boyunca şeritleri tekil siparişlerden esirgemesin diye);
+        // başarılı siparişi olan sepetler için sepet istenmez, aradaki yarışları yazarken kalem bazında sahiplenme çözer
+        Deadline deadline = Deadline.after(REQUEST_DEADLINE_MS);
+        List<Long> cartIds = requests.stream().map(CreateOrderRequest::getCartId).filter(Objects::nonNull).distinct().toList();
+        Set<Long> claimed = cartIds.isEmpty() ? new HashSet<>() : new HashSet<>(orderRepository.findClaimedCartIds(cartIds));
+
+        // Tüm sepet istekleri aynı anda ve ortak bir deadline ile gönderilir, yanıtlar sırayla toplanır
+        List<CompletableFuture<CartSchema>> carts = requests.stream()
+                .map(request -> claimed.contains(request.getCartId()) ? null : getCartByIdAsync(request.getCartId(), deadline))
+                .toList();
+
+        BatchOrderResult[] results = new BatchOrderResult[requests.size()];
+        List<Order> toInsert = new ArrayList<>(requests.size());
+        List<Integer> insertedIndexes = new ArrayList<>(requests.size());
+        List<String> insertedKeys = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateOrderRequest request = requests.get(i);
+            // Batch içinde aynı sepet tekrar ediyorsa ilk başarılı sipariş sepeti sahiplenir
+            if (claimed.contains(request.getCartId())) {
+                results[i] = BatchOrderResult.failed(i, "Cart already has a successful order, cartId: " + request.getCartId());
+                continue;
+            }
+            try {
+                Order order = buildOrder(request, carts.get(i).join());
+                order.setPaymentStatus(getRandomBoolean() ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+                countPayment(order.getPaymentStatus());
+                lineItemStorage.prepare(order);
+                toInsert.add(order);
+                insertedIndexes.add(i);
+                insertedKeys.add(idempotencyKeys.get(i));
+                if (order.getPaymentStatus() == PaymentStatus.SUCCESS && order.getCartId() != null) {
+                    claimed.add(order.getCartId());
+                }
+            } catch (RuntimeException e) {
+                results[i] = BatchOrderResult.failed(i, rootMessage(e));
+            }
+        }
 
-        return orderRepository.save(order);
+        // Siparişler toplu yazılır; başarılı ödemelerin yan etkileri aynı transaction'da outbox'a eklenir.
+        // Sepeti bu arada başka bir örnekte sahiplenilen kalemler yazılmaz ve yalnızca onlar başarısız döner
+        Set<Long> writtenIds = insertBatch(toInsert, insertedKeys).stream().map(Order::getId).collect(Collectors.toSet());
+
+        int saved = 0;
+        for (int j = 0; j < toInsert.size(); j++) {
+            Order order = toInsert.get(j);
+            int index = insertedIndexes.get(j);
+            if (!writtenIds.contains(order.getId())) {
+                logToService("ERROR", "Duplicate successful order rejected for cartId: " + order.getCartId());
+                results[index] = BatchOrderResult.failed(index, "Cart already has a successful order, cartId: " + order.getCartId());
+                continue;
+            }
+            orderCache.invalidate(order.getId(), order.getUserId());
+            results[index] = new BatchOrderResult(index, order.getId(), order.getPaymentStatus(), null);
+            saved++;
+        }
+        logToService("INFO", "Batch order creation finished: " + saved + "/" + requests.size() + " orders saved");
+        return List.of(results);
     }
 
+    private List<Order> insertBatch(List<Order> toInsert, List<String> idempotencyKeys) {
+        return transactionTemplate.execute(status -> {
+            List<Order> written = orderBatchRepository.insertAll(toInsert);
+            Set<Long> writtenIds = written.stream().map(Order::getId).collect(Collectors.toSet());
+            for (int j = 0; j < toInsert.size(); j++) {
+                Order order = toInsert.get(j);
+                if (idempotencyKeys.get(j) != null && writtenIds.contains(order.getId())) {
+                    idempotencyStore.record(order.getUserId(), idempotencyKeys.get(j),
+                            fingerprintOf(order.getUserId(), order.getCartId()), order.getId());
+                }
+            }
+            List<OutboxMessage> sideEffects = new ArrayList<>();
+            UserSummaryDelta summaryDelta = new UserSummaryDelta();
+            List<OrderChangeEvent> changes = new ArrayList<>(written.size());
+            for (Order order : written) {
+                if (order.getPaymentStatus() == PaymentStatus.SUCCESS) {
+                    sideEffects.addAll(sideEffectsOf(order));
+                }
+                summaryDelta.orderCreated(order);
+                changes.add(changeOf(OrderChangeType.CREATED, order));
+            }
+            outboxRepository.saveAll(sideEffects);
+            userSummaryWriter.apply(summaryDelta);
+            orderChangeRepository.append(changes);
+            return written;
+        });
+    }
 
-    // Siparişi iptal et
+    // Siparişi iptal et; sipariş bu arada başka bir istekte güncellendiyse yeniden okunup tekrar denenir
     public Order cancelOrder(CancelOrderRequest request) {
         logToService("INFO", "Cancel order process started for orderId: " + request.getOrderId());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return cancelOnce(request);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_CANCEL_ATTEMPTS) {
+                    throw e;
+                }
+                logToService("WARN", "Concurrent update on orderId: " + request.getOrderId() + ", retrying cancel");
+            }
+        }
+    }
 
-        Order order = orderRepository.findById(request.getOrderId())
+    private Order cancelOnce(CancelOrderRequest request) {
+        Order order = orderRepository.findWithProductsById(request.getOrderId())
                 .orElseThrow(() -> {
                     logToService("ERROR", "Order not found for orderId: " + request.getOrderId());
                     return new RuntimeException("Order not found: " + request.getOrderId());
                 });
 
 
+        // Kullanıcı özeti ve değişiklik akışı yalnızca ilk iptalde güncellenir
+        boolean firstCancel = !order.isCanceled();
+        boolean paid = order.getPaymentStatus() == PaymentStatus.SUCCESS;
+        UserSummaryDelta summaryDelta = new UserSummaryDelta();
+        if (firstCancel) {
+            summaryDelta.orderCanceled(order.getUserId(), order.getPaymentStatus());
+            if (order.getPaymentStatus() == PaymentStatus.SUCCESS) {
+                order.getProducts().forEach(product ->
+                        summaryDelta.productsReturned(order.getUserId(), product.getProductId(), product.getQuantity()));
+            }
+        }
+
         order.setCanceled(true);
         order.setPaymentStatus(PaymentStatus.CANCELED); // PaymentStatus güncelleniyor
         order.setUpdatedAt(LocalDateTime.now());
 
-        updateProductStock(order.getProducts(), "increase_stock"); // Ürün stokları artırılıyor
+        // Sipariş, stok artırma mesajı ve kullanıcı özeti aynı transaction'da yazılır. Stok yalnızca ödemesi alınmış
+        // siparişin ilk iptalinde iade edilir (başarısız ödemede düşülmemiştir, tekrar iptalde zaten iade edilmiştir)
+        Order canceledOrder = transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(order);
+            if (firstCancel && paid) {
+                outboxRepository.save(stockUpdate(saved.getProducts(), StockDeltaAggregator.INCREASE_STOCK));
+            }
+            userSummaryWriter.apply(summaryDelta);
+            if (firstCancel) {
+                orderChangeRepository.append(List.of(changeOf(OrderChangeType.CANCELED, saved)));
+            }
+            if (paid) {
+                orderRepository.releaseCarts(List.of(saved.getId()));
+            }
+            return saved;
+        });
+        orderCache.invalidate(order.getId(), order.getUserId());
         logToService("INFO", "Order canceled successfully for orderId: " + request.getOrderId());
 
-        return orderRepository.save(order);
+        return canceledOrder;
     }
 
 
-    // Tüm siparişleri getir
-    @Transactional
-    public List<Order> getAllOrders() {
-        logToService("INFO", "Fetching all orders");
-        return orderRepository.findAll();
+    // Siparişleri parça parça toplu iptal et; her parçanın sonunda ilerleme bildirilir.
+    // Her parça tek transaction'dır: siparişler kilitlenir, tek UPDATE ile iptal edilir ve
+    // ödemesi alınmış siparişlerin ürünleri ürün bazında toplanıp tek bir increase_stock mesajı olarak outbox'a yazılır.
+    public BatchCancelProgress cancelOrders(BatchCancelRequest request, Consumer<BatchCancelProgress> progress) {
+        logToService("INFO", "Batch cancel started" + (request.byOrderIds()
+                ? " for " + request.orderIds().size() + " order ids"
+                : " for userId: " + request.userId() + ", createdFrom: " + request.createdFrom() + ", createdTo: " + request.createdTo()));
+
+        long processed = 0;
+        long canceled = 0;
+        if (request.byOrderIds()) {
+            List<Long> ids = request.orderIds().stream().distinct().sorted().toList();
+            for (int from = 0; from < ids.size(); from += CANCEL_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + CANCEL_CHUNK_SIZE, ids.size()));
+                canceled += cancelChunk(chunk).size();
+                processed += chunk.size();
+                progress.accept(new BatchCancelProgress(processed, canceled, false));
+            }
+        } else {
+            long afterId = 0L;
+            List<Long> chunk;
+            do {
+                chunk = orderRepository.findCancelableIds(afterId, request.userId(),
+                        request.createdFrom(), request.createdTo(), PageRequest.ofSize(CANCEL_CHUNK_SIZE));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                canceled += cancelChunk(chunk).size();
+                processed += chunk.size();
+                afterId = chunk.get(chunk.size() - 1);
+                progress.accept(new BatchCancelProgress(processed, canceled, false));
+            } while (chunk.size() == CANCEL_CHUNK_SIZE);
+        }
+
+        BatchCancelProgress result = new BatchCancelProgress(processed, canceled, true);
+        progress.accept(result);
+        logToService("INFO", "Batch cancel finished: " + canceled + "/" + processed + " orders canceled");
+        return result;
+    }
+
+    // Verilen siparişleri toplu iptal et; iptal edilen id'leri döner (bulunamayan veya zaten iptal edilmiş olanlar hariç)
+    public Set<Long> cancelOrdersById(Collection<Long> orderIds) {
+        List<Long> ids = orderIds.stream().distinct().sorted().toList();
+        Set<Long> canceled = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += CANCEL_CHUNK_SIZE) {
+            canceled.addAll(cancelChunk(ids.subList(from, Math.min(from + CANCEL_CHUNK_SIZE, ids.size()))));
+        }
+        return canceled;
     }
 
-    // ID'ye göre sipariş getir
-    public Order getOrderById(Long id) {
+    // Toplu iptal ilerlemesini NDJSON olarak satır satır yaz
+    public void cancelOrders(BatchCancelRequest request, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            cancelOrders(request, progress -> {
+                try {
+                    objectMapper.writeValue(generator, progress);
+                    generator.writeRaw('\n');
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            generator.close();
+        }
+    }
+
+    // Cursor (id) tabanlı sipariş sayfası getir; tablonun tamamı belleğe alınmaz. Liste replikadan okunur.
+    public OrderPage getOrders(OrderFilter filter, Long cursor, int limit) {
+        logToService("INFO", "Fetching orders page after cursor: " + cursor);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        return read(false, () -> {
+            // Bir fazla id çekerek sonraki sayfanın olup olmadığını anla
+            List<Long> ids = orderRepository.findPageIds(cursor != null ? cursor : 0L,
+                    filter.paymentStatus(), filter.canceled(), filter.createdFrom(), filter.createdTo(),
+                    PageRequest.ofSize(pageSize + 1));
+            Long nextCursor = null;
+            if (ids.size() > pageSize) {
+                ids = ids.subList(0, pageSize);
+                nextCursor = ids.get(pageSize - 1);
+            }
+            // İkinci sorgu: sayfadaki siparişler ürünleriyle birlikte (yanıt projeksiyonu)
+            List<OrderResponse> orders = ids.isEmpty() ? List.of() : OrderResponse.fromRows(orderRepository.findResponseRowsByIdIn(ids));
+            return new OrderPage(orders, nextCursor);
+        });
+    }
+
+    // Filtreye uyan siparişleri replikadan okuyup NDJSON olarak satır satır yaz
+    public void exportOrders(OrderFilter filter, OutputStream out) throws IOException {
+        logToService("INFO", "Exporting orders as NDJSON");
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            read(false, () -> {
+                orderExportRepository.streamOrders(filter, order -> {
+                    try {
+                        objectMapper.writeValue(generator, order);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            generator.close();
+        }
+    }
+
+    // ID'ye göre sipariş getir; önbellekte varsa veritabanına (ve transaction'a) gidilmez
+    public OrderResponse getOrderById(Long id) {
+        return getOrderById(id, false);
+    }
+
+    // includeArchived ise canlı tabloda bulunamayan sipariş arşivde de aranır.
+    // Yakın zamanda oluşturulan/değişen sipariş birincilden, diğerleri replikadan okunur.
+    public OrderResponse getOrderById(Long id, boolean includeArchived) {
+        return getOrderById(id, includeArchived, null);
+    }
+
+    // lastWriteAt: istemcinin son yazma zamanı (epoch ms, başka bir örnekte yazmış olabilir). Read-your-writes süresi
+    // içindeyse bu örneğin önbelleği atlanır ve birincilden okunur
+    public OrderResponse getOrderById(Long id, boolean includeArchived, Long lastWriteAt) {
         logToService("INFO", "Fetching order by ID: " + id);
-        return orderRepository.findById(id)
+        boolean clientWrote = orderCache.isClientWriteRecent(lastWriteAt);
+        OrderResponse cached = clientWrote ? null : orderCache.getOrder(id);
+        if (cached != null) {
+            return cached;
+        }
+        // Okuma sürerken sipariş değişirse okunan (eski olabilecek) değer önbelleğe yazılmaz
+        long version = orderCache.orderVersion(id);
+        boolean recentlyWritten = clientWrote || orderCache.isOrderRecentlyWritten(id);
+        Optional<OrderResponse> live = read(recentlyWritten,
+                () -> OrderResponse.fromRows(orderRepository.findResponseRowsById(id)).stream().findFirst());
+        if (live.isPresent()) {
+            orderCache.putOrder(live.get(), version);
+            return live.get();
+        }
+        return (includeArchived
+                ? read(recentlyWritten, () -> archivedOrderRepository.findById(id).map(archived -> OrderResponse.of(archived.toOrder())))
+                : Optional.<OrderResponse>empty())
                 .orElseThrow(() -> {
                     logToService("ERROR", "Order not found with ID: " + id);
                     return new RuntimeException("Order not found with id: " + id);
                 });
     }
 
-    // Kullanıcı bazlı siparişleri getir
-    public List<Order> getOrdersByUserId(Long userId) {
+    // Kullanıcı bazlı siparişleri getir; önbellekte varsa veritabanına gidilmez.
+    // Kullanıcı yakın zamanda sipariş oluşturduysa/iptal ettiyse birincilden, değilse replikadan okunur.
+    public List<OrderResponse> getOrdersByUserId(Long userId) {
+        return liveOrdersByUserId(userId, false);
+    }
+
+    // Kullanıcının arşivlenmiş siparişleri de dahil tüm siparişleri (id sırasıyla)
+    public List<OrderResponse> getOrdersByUserId(Long userId, boolean includeArchived) {
+        return getOrdersByUserId(userId, includeArchived, null);
+    }
+
+    // lastWriteAt: istemcinin son yazma zamanı (epoch ms); bkz. getOrderById
+    public List<OrderResponse> getOrdersByUserId(Long userId, boolean includeArchived, Long lastWriteAt) {
+        boolean clientWrote = orderCache.isClientWriteRecent(lastWriteAt);
+        List<OrderResponse> live = liveOrdersByUserId(userId, clientWrote);
+        if (!includeArchived) {
+            return live;
+        }
+        List<OrderResponse> orders = new ArrayList<>(live);
+        read(clientWrote || orderCache.isUserRecentlyWritten(userId), () -> archivedOrderRepository.findByUserIdOrderByIdAsc(userId))
+                .forEach(archived -> orders.add(OrderResponse.of(archived.toOrder())));
+        orders.sort(Comparator.comparing(OrderResponse::id));
+        return orders;
+    }
+
+    private List<OrderResponse> liveOrdersByUserId(Long userId, boolean clientWrote) {
         logToService("INFO", "Fetching orders for user ID: " + userId);
-        return orderRepository.findByUserId(userId);
+        List<OrderResponse> cached = clientWrote ? null : orderCache.getUserOrders(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long version = orderCache.userOrdersVersion(userId);
+        List<OrderResponse> orders = read(clientWrote || orderCache.isUserRecentlyWritten(userId),
+                () -> OrderResponse.fromRows(orderRepository.findResponseRowsByUserId(userId)));
+        orderCache.putUserOrders(userId, orders, version);
+        return orders;
+    }
+
+    // Okumayı replikada çalıştır; okunacak veri yakın zamanda yazıldıysa (replika gecikmesi) birincilde kalır
+    private <T> T read(boolean recentlyWritten, Supplier<T> query) {
+        return recentlyWritten ? query.get() : ReadReplica.read(transactionTemplate.getTransactionManager(), query);
     }
 
-    // RabbitMQ üzerinden belirli bir sepeti getir
-    private CartSchema getCartById(Long cartId) {
-        String message = "{ \"action\": \"get_cart_by_id\", \"cart_id\": " + cartId + " }";
-        String response = rabbitMQClient.sendAndReceive("get_cart_request", message);
+    // Idempotency-Key ile birlikte saklanan istek özeti; aynı anahtar başka bir sepet için kullanılamaz
+    private static String fingerprintOf(Long userId, Long cartId) {
+        return userId + ":" + cartId;
+    }
+
+    // Sepeti doğrula ve siparişi oluştur (ödeme durumu henüz atanmamış).
+    // buildOrder/stockUpdate benchmark'lardan erişilebilmesi için paket erişimlidir.
+    Order buildOrder(CreateOrderRequest request, CartSchema cart) {
+        if (cart == null || cart.getProducts().isEmpty()) {
+            logToService("ERROR", "Cart is empty or not found for cartId: " + request.getCartId());
+            throw new RuntimeException("Cart is empty or not found for cartId: " + request.getCartId());
+        }
 
-        if (response == null || response.isEmpty()) {
-            logToService("ERROR", "Cart is empty or not found for cartId: " + cartId);
-            throw new RuntimeException("Cart is empty or not found for cartId: " + cartId);
+        // cartId doğrulaması
+        if (!cart.getUserId().equals(request.getUserId())) {
+            logToService("ERROR", "Cart does not belong to userId: " + request.getUserId());
+            throw new RuntimeException("Cart does not belong to userId: " + request.getUserId());
         }
 
+        Order order = new Order();
+        order.setUserId(request.getUserId());
+        order.setCartId(request.getCartId());
+        order.setCreatedAt(LocalDateTime.now());
+        order.setProducts(cart.getProducts().stream()
+                .map(product -> {
+                    OrderProduct orderProduct = new OrderProduct();
+                    orderProduct.setProductId(product.getId());
+                    orderProduct.setQuantity(product.getAmount());
+                    return orderProduct;
+                }).toList());
+        return order;
+    }
+
+    // RabbitMQ üzerinden belirli bir sepeti getir; yanıt doğrudan CartSchema'ya çözülür
+    private CartSchema getCartById(Long cartId, Deadline deadline) {
         try {
-            return objectMapper.readValue(response, CartSchema.class);
-        } catch (Exception e) {
-            logToService("ERROR", "Failed to parse cart data for cartId: " + cartId);
-            throw new RuntimeException("Failed to parse cart data for cartId: " + cartId, e);
+            return rabbitMQClient.sendAndReceive("get_cart_request", CartRequest.getCart(cartId), CartSchema.class, deadline);
+        } catch (MessageConversionException e) {
+            throw cartParseFailure(cartId, e);
         }
     }
 
-    // RabbitMQ üzerinden ürün stoklarını güncelle
-    private void updateProductStock(List<OrderProduct> products, String action) {
-        StringBuilder messageBuilder = new StringBuilder();
-        messageBuilder.append("{ \"action\": \"").append(action).append("\", \"products\": [");
-        for (OrderProduct product : products) {
-            messageBuilder.append("{ \"id\": ").append(product.getProductId())
-                    .append(", \"amount\": ").append(product.getQuantity()).append(" },");
+    // Sepeti bloklamadan iste; yanıt geldiğinde çözülür
+    private CompletableFuture<CartSchema> getCartByIdAsync(Long cartId, Deadline deadline) {
+        return rabbitMQClient.sendAndReceiveAsync("get_cart_request", CartRequest.getCart(cartId), CartSchema.class, deadline)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof MessageConversionException conversion) {
+                        throw cartParseFailure(cartId, conversion);
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private RuntimeException cartParseFailure(Long cartId, MessageConversionException e) {
+        logToService("ERROR", "Failed to parse cart data for cartId: " + cartId);
+        return new RuntimeException("Failed to parse cart data for cartId: " + cartId, e);
+    }
+
+    // Bir parçayı iptal et; gerçekten iptal edilen (önceden iptal edilmemiş) siparişlerin id'lerini döner
+    private List<Long> cancelChunk(List<Long> ids) {
+        List<Object[]> owners = transactionTemplate.execute(status -> {
+            List<Object[]> locked = orderRepository.lockCancelable(ids);
+            if (locked.isEmpty()) {
+                return locked;
+            }
+            List<Long> lockedIds = locked.stream().map(row -> ((Number) row[0]).longValue()).toList();
+            UserSummaryDelta summaryDelta = new UserSummaryDelta();
+            LocalDateTime now = LocalDateTime.now();
+            List<OrderChangeEvent> changes = new ArrayList<>(locked.size());
+            for (Object[] row : locked) {
+                summaryDelta.orderCanceled(userIdOf(row[1]), row[2] != null ? PaymentStatus.valueOf(row[2].toString()) : null);
+                changes.add(OrderChangeEvent.of(OrderChangeType.CANCELED, ((Number) row[0]).longValue(), userIdOf(row[1]),
+                        PaymentStatus.CANCELED, now));
+            }
+            // Ödemesi başarısız siparişlerde stok hiç düşülmediği için iade edilmez
+            List<Object[]> totals = paidProductTotals(lockedIds);
+            orderRepository.markCanceled(lockedIds, PaymentStatus.CANCELED, now);
+            orderRepository.releaseCarts(lockedIds);
+            if (!totals.isEmpty()) {
+                Map<Long, Integer> quantities = new LinkedHashMap<>();
+                for (Object[] row : totals) {
+                    long productId = ((Number) row[1]).longValue();
+                    int quantity = ((Number) row[2]).intValue();
+                    quantities.merge(productId, quantity, Integer::sum);
+                    summaryDelta.productsReturned(userIdOf(row[0]), productId, quantity);
+                }
+                List<ProductSchema> items = new ArrayList<>(quantities.size());
+                quantities.forEach((productId, quantity) -> items.add(new ProductSchema(productId, quantity)));
+                outboxRepository.save(outboxMessage(StockDeltaAggregator.PRODUCT_QUEUE,
+                        new StockUpdateMessage(StockDeltaAggregator.INCREASE_STOCK, items)));
+            }
+            userSummaryWriter.apply(summaryDelta);
+            orderChangeRepository.append(changes);
+            return locked;
+        });
+        List<Long> canceledIds = new ArrayList<>(owners.size());
+        for (Object[] owner : owners) {
+            long orderId = ((Number) owner[0]).longValue();
+            orderCache.invalidate(orderId, userIdOf(owner[1]));
+            canceledIds.add(orderId);
         }
-        String message = messageBuilder.substring(0, messageBuilder.length() - 1) + "] }";
-        rabbitMQClient.sendAndReceive("product_service_queue", message);
-        logToService("INFO", "Product stock updated with action: " + action + ", products: " + message);
+        return canceledIds;
     }
 
-    // RabbitMQ üzerinden sepeti temizle
-    private void clearCart(Long cartId) {
-        String message = "{ \"action\": \"delete_cart\", \"cart_id\": " + cartId + " }";
-        rabbitMQClient.sendAndReceive("cart_service_queue", message);
-        logToService("INFO", "Cart cleared successfully for cartId: " + cartId);
+    // Ödemesi alınmış siparişlerin kalemleri (userId, productId, miktar); order_products ve line_items'takiler birlikte
+    private List<Object[]> paidProductTotals(List<Long> ids) {
+        List<Object[]> totals = new ArrayList<>(orderRepository.sumProductQuantitiesByUser(ids, PaymentStatus.SUCCESS));
+        for (Object[] row : orderRepository.findPackedLineItems(ids, PaymentStatus.SUCCESS)) {
+            for (OrderProduct product : ((PackedLineItems) row[1]).items()) {
+                if (product.getProductId() != null) {
+                    totals.add(new Object[]{row[0], product.getProductId(), product.getQuantity()});
+                }
+            }
+        }
+        return totals;
     }
 
-    // RabbitMQ üzerinden log gönder
-    private void logToService(String level, String message) {
-        try {
-            String logPayload = objectMapper.writeValueAsString(new LogRequest("order-service", level, message));
-            rabbitMQClient.sendAndReceive(LOG_QUEUE, logPayload);
-        } catch (Exception e) {
-            System.err.println("Failed to send log to RabbitMQ: " + message);
+    private static OrderChangeEvent changeOf(OrderChangeType type, Order order) {
+        LocalDateTime occurredAt = type == OrderChangeType.CREATED ? order.getCreatedAt() : order.getUpdatedAt();
+        if (occurredAt == null) {
+            occurredAt = LocalDateTime.now();
         }
+        return OrderChangeEvent.of(type, order.getId(), order.getUserId(), order.getPaymentStatus(), occurredAt);
     }
 
-    // Rastgele boolean üreten yardımcı metot (ör. ödeme durumu için)
-    protected boolean getRandomBoolean() {
-        return new Random().nextBoolean();
+    // Sorgu satırındaki user_id kolonu (boş olabilir)
+    private static Long userIdOf(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
     }
 
-    // Log isteği için DTO
-    private static class LogRequest {
-        private String service;
-        private Content content;
+    // Başarılı siparişin yan etkileri: sepeti temizle, stokları azalt
+    private List<OutboxMessage> sideEffectsOf(Order order) {
+        return List.of(clearCart(order.getCartId()),
+                stockUpdate(order.getProducts(), StockDeltaAggregator.DECREASE_STOCK));
+    }
+
+    // Ürün stoklarını güncelleyen outbox mesajı; ürün id'si olmayan (eski) kalemlerin stoğu yoktur, atlanır
+    OutboxMessage stockUpdate(List<OrderProduct> products, String action) {
+        List<ProductSchema> items = products.stream()
+                .filter(product -> product.getProductId() != null)
+                .map(product -> new ProductSchema(product.getProductId(), product.getQuantity()))
+                .toList();
+        return outboxMessage(StockDeltaAggregator.PRODUCT_QUEUE, new StockUpdateMessage(action, items));
+    }
+
+    // Sepeti temizleyen outbox mesajı
+    private OutboxMessage clearCart(Long cartId) {
+        return outboxMessage(CART_QUEUE, CartRequest.deleteCart(cartId));
+    }
+
+    // Outbox tablosunda mesajlar JSON olarak saklanır; kuyruk kodlaması yayın sırasında yapılır
+    private OutboxMessage outboxMessage(String destination, Object payload) {
+        try {
+            return new OutboxMessage(destination, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize outbox message for " + destination, e);
+        }
+    }
 
-        public LogRequest(String service, String level, String message) {
-            this.service = service;
-            this.content = new Content(level, message);
+    // Ödeme sonuçlarını (SUCCESS/FAILED) say; sayaç durum başına bir kez kaydedilir, sıcak yolda yalnızca map okunur
+    private void countPayment(PaymentStatus status) {
+        Counter counter = paymentCounters.get(status);
+        if (counter == null) {
+            counter = paymentCounters.computeIfAbsent(status, key ->
+                    Counter.builder("order.payments").tag("status", key.name()).register(meterRegistry));
         }
+        counter.increment();
+    }
 
-        private static class Content {
-            private String level;
-            private String message;
+    // Log'u arka planda toplu gönderilmek üzere kuyruğa al
+    private void logToService(String level, String message) {
+        logPublisher.publish(level, message);
+    }
 
-            public Content(String level, String message) {
-                this.level = level;
-                this.message = message;
-            }
+    // CompletionException sarmalını açıp asıl hata mesajını döndür
+    private String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
         }
+        return cause.getMessage();
+    }
+
+    // Rastgele boolean üreten yardımcı metot (ör. ödeme durumu için)
+    protected boolean getRandomBoolean() {
+        return new Random().nextBoolean();
     }
 }
@@ -0,0 +1,198 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.dto.StockUpdateMessage;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.util.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * order_outbox tablosundaki mesajları toplu halde kuyruklara yayınlar.
+ * Satırlar kısa bir transaction'da SKIP LOCKED ile seçilip kira süresi kadar ileri atılır (kiralanır); yayın ve onay
+ * beklemesi transaction, satır kilidi ve bağlantı tutulmadan yapılır. Sonuçlar ikinci bir transaction'da yazılır:
+ * onaylanan mesajlar silinir, başarısız olanlar üstel artan bekleme ile yeniden denenir, deneme sınırını aşanlar
+ * yayından çıkarılır (dead letter). Örnek onaydan önce çökerse kiralanan satırlar kira sonunda yeniden yayınlanır.
+ * product_service_queue mesajları StockDeltaAggregator üzerinden ürün bazında birleştirilir.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 255; // order_outbox.last_error uzunluğu
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitMQClient rabbitMQClient;
+    private final StockDeltaAggregator stockDeltaAggregator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long ackTimeoutMs;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+
+    private volatile long lagMillis;
+    private volatile long lastBatchSize;
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       RabbitMQClient rabbitMQClient,
+                       StockDeltaAggregator stockDeltaAggregator,
+                       ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${order.outbox.batch-size:100}") int batchSize,
+                       @Value("${order.outbox.ack-timeout-ms:5000}") long ackTimeoutMs,
+                       @Value("${order.outbox.backoff-initial-ms:500}") long backoffInitialMs,
+                       @Value("${order.outbox.backoff-max-ms:60000}") long backoffMaxMs,
+                       @Value("${order.outbox.lease-ms:30000}") long leaseMs,
+                       @Value("${order.outbox.max-attempts:20}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitMQClient = rabbitMQClient;
+        this.stockDeltaAggregator = stockDeltaAggregator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Bekleyen mesaj kalmayana (veya yalnızca ertelenmiş mesajlar kalana) kadar toplu yayınla
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+        updateLag();
+    }
+
+    // Tek bir batch'i kirala, transaction dışında yayınla ve sonuçlarını ayrı bir transaction'da yaz
+    public int relayBatch() {
+        List<OutboxMessage> batch = lease();
+        lastBatchSize = batch.size();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            acks.add(publish(message));
+        }
+        // Birleştirilen stok değişikliklerini pencereyi beklemeden gönder
+        stockDeltaAggregator.flush();
+
+        // Mesajlar birlikte gönderildiğinden onaylar ortak bir süre içinde beklenir
+        Deadline deadline = Deadline.after(ackTimeoutMs);
+        List<OutboxMessage> delivered = new ArrayList<>(batch.size());
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage message = batch.get(i);
+            try {
+                acks.get(i).get(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS);
+                delivered.add(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                scheduleRetry(message, e);
+                failed.add(message);
+            } catch (Exception e) {
+                scheduleRetry(message, e);
+                failed.add(message);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllInBatch(delivered);
+            outboxRepository.saveAll(failed);
+        });
+        return batch.size();
+    }
+
+    // Zamanı gelmiş satırları kilitleyip bir sonraki denemelerini kira süresi kadar ileri atar. Kilitler commit'te
+    // bırakılır; kira dolana kadar başka örnekler bu satırları seçmez.
+    private List<OutboxMessage> lease() {
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxRepository.lockDueMessages(now, batchSize);
+            LocalDateTime leasedUntil = now.plus(Duration.ofMillis(leaseMs));
+            due.forEach(message -> message.setNextAttemptAt(leasedUntil));
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    // En eski bekleyen mesajın yaşı (ms); outbox boşsa 0
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    // Deneme sınırını aşıp yayından çıkarılan mesaj sayısı (bu örnekte)
+    public long getDeadLetteredCount() {
+        return deadLettered.get();
+    }
+
+    private CompletableFuture<?> publish(OutboxMessage message) {
+        try {
+            if (StockDeltaAggregator.PRODUCT_QUEUE.equals(message.getDestination())) {
+                StockUpdateMessage update = objectMapper.readValue(message.getPayload(), StockUpdateMessage.class);
+                List<OrderProduct> products = update.products().stream()
+                        .map(product -> {
+                            OrderProduct orderProduct = new OrderProduct();
+                            orderProduct.setProductId(product.getId());
+                            orderProduct.setQuantity(product.getAmount());
+                            return orderProduct;
+                        }).toList();
+                return stockDeltaAggregator.submit(products, update.action());
+            }
+            // Saklanan JSON, kuyruğun kodlayıcısıyla (JSON/Smile) yeniden yazılmak üzere ağaç olarak okunur
+            JsonNode payload = objectMapper.readTree(message.getPayload());
+            return rabbitMQClient.sendAndReceiveAsync(message.getDestination(), payload, Void.class);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void scheduleRetry(OutboxMessage message, Exception error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        Throwable cause = error instanceof ExecutionException && error.getCause() != null ? error.getCause() : error;
+        String detail = cause.toString();
+        message.setLastError(detail.length() > MAX_ERROR_LENGTH ? detail.substring(0, MAX_ERROR_LENGTH) : detail);
+        if (attempts >= maxAttempts) {
+            // Deneme sınırı aşıldı; mesaj bir daha seçilmez, incelenmek üzere tabloda kalır
+            message.setNextAttemptAt(null);
+            message.setDeadLetteredAt(LocalDateTime.now());
+            deadLettered.incrementAndGet();
+            return;
+        }
+        long backoff = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempts - 1, 20));
+        message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+    }
+
+    private void updateLag() {
+        LocalDateTime oldest = outboxRepository.findOldestCreatedAt();
+        lagMillis = oldest == null ? 0L : Math.max(0L, Duration.between(oldest, LocalDateTime.now()).toMillis());
+    }
+}
@@ -0,0 +1,116 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.SummaryRebuildResult;
+import com.micro.order.entity.ArchivedOrder;
+import com.micro.order.entity.UserOrderSummary;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.UserOrderSummaryRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.repository.UserSummaryDelta;
+import com.micro.order.util.ReadReplica;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Kullanıcı sipariş özetlerini (okuma modeli) sunar ve gerektiğinde baştan hesaplar.
+ * Özetler OrderService'te sipariş transaction'larıyla birlikte artımlı güncellenir; burada yalnızca
+ * birincil anahtarla okunur ve arşivlenmiş siparişleri de kapsar. Yeniden hesaplama kullanıcı id aralıklarına
+ * bölünür ve parçalar paralel, her biri kendi transaction'ında işlenir. Hesaplama sırasında gelen siparişlerin etkisi ilgili parçada
+ * kaybolabileceğinden yoğun olmayan saatlerde çalıştırılmalıdır.
+ */
+@Service
+public class UserSummaryService {
+
+    private final UserOrderSummaryRepository summaryRepository;
+    private final UserOrderSummaryWriter summaryWriter;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderCache orderCache;
+    private final int chunkUsers;
+    private final int parallelism;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public UserSummaryService(UserOrderSummaryRepository summaryRepository,
+                              UserOrderSummaryWriter summaryWriter,
+                              ArchivedOrderRepository archivedOrderRepository,
+                              TransactionTemplate transactionTemplate,
+                              OrderCache orderCache,
+                              @Value("${order.summary.rebuild.chunk-users:1000}") int chunkUsers,
+                              @Value("${order.summary.rebuild.parallelism:4}") int parallelism) {
+        this.summaryRepository = summaryRepository;
+        this.summaryWriter = summaryWriter;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.orderCache = orderCache;
+        this.chunkUsers = chunkUsers;
+        this.parallelism = parallelism;
+    }
+
+    // Kullanıcının özeti; hiç siparişi yoksa sıfır değerli özet döner. Özet sipariş transaction'larında
+    // güncellendiğinden kullanıcının yakın zamanda siparişi değiştiyse birincilden, değilse replikadan okunur.
+    public UserOrderSummary getSummary(Long userId) {
+        return getSummary(userId, null);
+    }
+
+    // lastWriteAt: istemcinin son yazma zamanı (epoch ms); başka bir örnekte yazdıysa da birincilden okunur
+    public UserOrderSummary getSummary(Long userId, Long lastWriteAt) {
+        Supplier<UserOrderSummary> query = () -> summaryRepository.findWithProductsByUserId(userId).orElseGet(() -> {
+            UserOrderSummary empty = new UserOrderSummary();
+            empty.setUserId(userId);
+            return empty;
+        });
+        return orderCache.isClientWriteRecent(lastWriteAt) || orderCache.isUserRecentlyWritten(userId)
+                ? query.get()
+                : ReadReplica.read(transactionTemplate.getTransactionManager(), query);
+    }
+
+    // Tüm özetleri orders/order_products ve order_archive tablolarından baştan hesapla
+    public SummaryRebuildResult rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new RuntimeException("User summary rebuild is already running");
+        }
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            long afterUserId = Long.MIN_VALUE;
+            List<Long> userIds;
+            do {
+                userIds = summaryWriter.nextUserIds(afterUserId, chunkUsers);
+                long from = afterUserId;
+                // Son parça üst sınırsızdır; artık siparişi olmayan kullanıcıların özetleri de silinir
+                long to = userIds.size() == chunkUsers ? userIds.get(userIds.size() - 1) : Long.MAX_VALUE;
+                chunks.add(CompletableFuture.supplyAsync(() ->
+                        transactionTemplate.execute(status -> rebuildRange(from, to)), executor));
+                afterUserId = to;
+            } while (userIds.size() == chunkUsers);
+
+            long users = 0;
+            for (CompletableFuture<Integer> chunk : chunks) {
+                users += chunk.join();
+            }
+            return new SummaryRebuildResult(chunks.size(), users, (System.nanoTime() - start) / 1_000_000L);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // Canlı siparişler SQL ile hesaplanır; arşivdeki siparişlerin kalemleri paketli olduğundan uygulamada eklenir
+    private int rebuildRange(long afterUserId, long lastUserId) {
+        summaryWriter.rebuild(afterUserId, lastUserId);
+        UserSummaryDelta archived = new UserSummaryDelta();
+        for (ArchivedOrder order : archivedOrderRepository.findByUserRange(afterUserId, lastUserId)) {
+            archived.orderCreated(order.toOrder());
+        }
+        summaryWriter.apply(archived);
+        return summaryWriter.countSummaries(afterUserId, lastUserId);
+    }
+}
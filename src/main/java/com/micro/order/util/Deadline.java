@@ -0,0 +1,37 @@
+package com.micro.order.util;
+
+/**
+ * Bir isteğin tüm alt çağrıları (RPC'ler) için ortak son zaman.
+ * Her çağrı kendi zaman aşımı ile kalan süreden küçük olanı kullanır.
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + millis * 1_000_000L);
+    }
+
+    // Süre sınırı olmayan istekler için
+    public static Deadline none() {
+        return NONE;
+    }
+
+    // Kalan süre (ms); süre dolduysa 0 veya negatif
+    public long remainingMillis() {
+        if (this == NONE) {
+            return Long.MAX_VALUE;
+        }
+        return (deadlineNanos - System.nanoTime()) / 1_000_000L;
+    }
+
+    public boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.micro.order.util;
+
+import com.micro.order.entity.OrderProduct;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sipariş kalemlerini (productId, quantity) tek bir byte dizisine paketler.
+ * Biçim: kalem sayısı, ardından her kalem için productId ve quantity; tümü değişken uzunluklu (varint).
+ * productId zigzag kodlanır ve boş değer için 0 ayrılır. Küçük id ve miktarlar 1-3 byte tutar.
+ */
+public final class LineItemPacker {
+
+    private LineItemPacker() {
+    }
+
+    public static byte[] pack(List<OrderProduct> products) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + products.size() * 4);
+        writeVarint(out, products.size());
+        for (OrderProduct product : products) {
+            Long productId = product.getProductId();
+            writeVarint(out, productId == null ? 0 : zigzag(productId) + 1);
+            writeVarint(out, zigzag(product.getQuantity()));
+        }
+        return out.toByteArray();
+    }
+
+    public static List<OrderProduct> unpack(byte[] packed) {
+        if (packed == null || packed.length == 0) {
+            return new ArrayList<>();
+        }
+        int[] position = {0};
+        int count = (int) readVarint(packed, position);
+        List<OrderProduct> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long productId = readVarint(packed, position);
+            OrderProduct product = new OrderProduct();
+            product.setProductId(productId == 0 ? null : unzigzag(productId - 1));
+            product.setQuantity((int) unzigzag(readVarint(packed, position)));
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated line item data");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in line item data");
+    }
+
+    // Negatif değerler de kısa kodlansın diye işaret biti en alta taşınır
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
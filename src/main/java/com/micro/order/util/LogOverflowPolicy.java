@@ -0,0 +1,8 @@
+package com.micro.order.util;
+
+// Log tamponu dolduğunda uygulanacak politika
+public enum LogOverflowPolicy {
+    DROP,   // Yeni olayı at
+    SAMPLE, // Tampon yarıdan fazla doluyken yalnızca her N. olayı kabul et
+    BLOCK   // Yer açılana kadar (en fazla block-timeout kadar) bekle
+}
@@ -0,0 +1,6 @@
+package com.micro.order.util;
+
+public enum OrderChangeType {
+    CREATED,
+    CANCELED
+}
@@ -0,0 +1,58 @@
+package com.micro.order.util;
+
+import com.micro.order.entity.OrderProduct;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * orders.line_items kolonundaki paketlenmiş sipariş kalemleri (bkz. LineItemPacker).
+ * Kalemler yalnızca ilk erişimde çözülür; liste ve okunan byte dizisi değiştirilmez.
+ * Değişmez olduğundan Hibernate kirli kontrolü için kopya tutmaz, byte dizisini karşılaştırır.
+ */
+@Immutable
+public final class PackedLineItems {
+
+    private final byte[] bytes;
+    private volatile List<OrderProduct> items;
+
+    private PackedLineItems(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static PackedLineItems of(List<OrderProduct> products) {
+        PackedLineItems packed = new PackedLineItems(LineItemPacker.pack(products));
+        packed.items = List.copyOf(products);
+        return packed;
+    }
+
+    public static PackedLineItems wrap(byte[] bytes) {
+        return bytes != null ? new PackedLineItems(bytes) : null;
+    }
+
+    public List<OrderProduct> items() {
+        List<OrderProduct> decoded = items;
+        if (decoded == null) {
+            decoded = Collections.unmodifiableList(LineItemPacker.unpack(bytes));
+            items = decoded;
+        }
+        return decoded;
+    }
+
+    // Paketlenmiş hali; çağıran değiştirmemelidir
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof PackedLineItems other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+}
@@ -0,0 +1,48 @@
+package com.micro.order.util;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Okumaları replika veritabanı havuzuna yönlendiren iş parçacığı işareti (bkz. config.DataSourceConfig).
+ * Yalnızca bununla açıkça işaretlenen okumalar replikaya gider; yazma yollarındaki okumalar (Spring Data'nın
+ * kendi salt okunur transaction'ları dahil) birincil veritabanında kalır. Replika tanımlı değilse işaret etkisizdir.
+ */
+public final class ReadReplica {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+    private static final TransactionDefinition READ_ONLY = readOnlyDefinition();
+
+    private ReadReplica() {
+    }
+
+    // query'yi replikada salt okunur bir transaction'da çalıştır. Bağlantı transaction başında alındığından
+    // işaret ondan önce konur; açık bir transaction içinden çağrılırsa ona katılır (bağlantısı zaten seçilmiştir).
+    public static <T> T read(PlatformTransactionManager transactionManager, Supplier<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return new TransactionTemplate(transactionManager, READ_ONLY).execute(status -> query.get());
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    // Bu iş parçacığında açılan bağlantılar replikadan mı alınmalı
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    private static TransactionDefinition readOnlyDefinition() {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        return definition;
+    }
+}
@@ -0,0 +1,55 @@
+-- Hibernate'in (ddl-auto=update) bugüne kadar oluşturduğu şema.
+-- Mevcut veritabanlarında baseline-on-migrate ile atlanır; yalnızca boş veritabanında çalışır.
+
+create table if not exists orders (
+    id             bigint generated by default as identity,
+    user_id        bigint,
+    cart_id        bigint,
+    created_at     timestamp(6),
+    updated_at     timestamp(6),
+    payment_status varchar(255) check (payment_status in ('SUCCESS', 'FAILED', 'CANCELED')),
+    canceled       boolean not null,
+    primary key (id)
+);
+
+create table if not exists order_products (
+    order_id   bigint  not null references orders (id),
+    product_id bigint,
+    quantity   integer not null
+);
+
+create table if not exists order_outbox (
+    id              bigint generated by default as identity,
+    destination     varchar(255),
+    payload         text,
+    created_at      timestamp(6),
+    next_attempt_at timestamp(6),
+    attempts        integer not null,
+    last_error      varchar(255),
+    primary key (id)
+);
+create index if not exists idx_order_outbox_next_attempt on order_outbox (next_attempt_at);
+
+create table if not exists order_idempotency_keys (
+    idempotency_key varchar(128) not null,
+    order_id        bigint,
+    created_at      timestamp(6),
+    primary key (idempotency_key)
+);
+create index if not exists idx_order_idempotency_created_at on order_idempotency_keys (created_at);
+
+create table if not exists order_user_summaries (
+    user_id        bigint not null,
+    success_count  bigint not null,
+    failed_count   bigint not null,
+    canceled_count bigint not null,
+    last_order_at  timestamp(6),
+    primary key (user_id)
+);
+
+create table if not exists order_user_product_totals (
+    user_id    bigint not null references order_user_summaries (user_id),
+    product_id bigint not null,
+    quantity   bigint,
+    primary key (user_id, product_id)
+);
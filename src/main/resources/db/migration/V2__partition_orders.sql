@@ -0,0 +1,53 @@
+-- orders tablosunu created_at'e göre aylık range partition'lara böler.
+-- Partition anahtarı birincil anahtarda yer almak zorunda olduğundan PK (id, created_at) olur;
+-- bu nedenle order_products -> orders foreign key'i kaldırılır (bütünlük uygulama tarafından korunur).
+-- Gelecek ayların partition'larını OrderPartitionManager önceden oluşturur; aralık dışı satırlar default partition'a düşer.
+
+do $$
+declare
+    fk record;
+begin
+    for fk in select conname from pg_constraint
+              where conrelid = 'order_products'::regclass and contype = 'f'
+    loop
+        execute format('alter table order_products drop constraint %I', fk.conname);
+    end loop;
+end $$;
+
+alter table orders rename to orders_unpartitioned;
+alter table orders_unpartitioned rename constraint orders_pkey to orders_unpartitioned_pkey;
+
+create table orders (
+    id             bigint generated by default as identity,
+    user_id        bigint,
+    cart_id        bigint,
+    created_at     timestamp(6) not null,
+    updated_at     timestamp(6),
+    payment_status varchar(255) check (payment_status in ('SUCCESS', 'FAILED', 'CANCELED')),
+    canceled       boolean not null,
+    primary key (id, created_at)
+) partition by range (created_at);
+
+create table orders_default partition of orders default;
+
+-- Mevcut verinin ilk ayından itibaren üç ay sonrasına kadar aylık partition'lar
+do $$
+declare
+    month_start date := date_trunc('month', coalesce((select min(created_at) from orders_unpartitioned), now()));
+    last_month  date := date_trunc('month', now() + interval '3 months');
+begin
+    while month_start <= last_month loop
+        execute format('create table %I partition of orders for values from (%L) to (%L)',
+                       'orders_p' || to_char(month_start, 'YYYYMM'), month_start, month_start + interval '1 month');
+        month_start := month_start + interval '1 month';
+    end loop;
+end $$;
+
+insert into orders (id, user_id, cart_id, created_at, updated_at, payment_status, canceled)
+    overriding system value
+select id, user_id, cart_id, coalesce(created_at, updated_at, now()), updated_at, payment_status, canceled
+from orders_unpartitioned;
+
+select setval(pg_get_serial_sequence('orders', 'id'), coalesce((select max(id) from orders), 0) + 1, false);
+
+drop table orders_unpartitioned;
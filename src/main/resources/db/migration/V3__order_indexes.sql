@@ -0,0 +1,10 @@
+-- Partitioned tablodaki index'ler her partition'da otomatik oluşturulur.
+
+-- findByUserId ve kullanıcı bazlı toplu iptal (id ile keyset)
+create index idx_orders_user_id on orders (user_id, id);
+-- createdFrom/createdTo aralık sorguları ve arşivleme
+create index idx_orders_created_at on orders (created_at);
+-- paymentStatus filtresiyle keyset sayfalama
+create index idx_orders_payment_status on orders (payment_status, id);
+-- Ürünler her okumada order_id ile yüklenir; foreign key olmadığından index ayrıca gerekir
+create index if not exists idx_order_products_order_id on order_products (order_id);
@@ -0,0 +1,17 @@
+-- Arşivlenen siparişler: sipariş başına tek satır, kalemler products kolonunda paketlenmiş (varint) olarak saklanır.
+-- Satırlar yalnızca eklenir, güncellenmez; sayfalar tam doldurulur.
+
+create table order_archive (
+    id             bigint       not null,
+    user_id        bigint,
+    cart_id        bigint,
+    created_at     timestamp(6),
+    updated_at     timestamp(6),
+    payment_status varchar(255) check (payment_status in ('SUCCESS', 'FAILED', 'CANCELED')),
+    canceled       boolean      not null,
+    archived_at    timestamp(6) not null,
+    products       bytea,
+    primary key (id)
+) with (fillfactor = 100);
+
+create index idx_order_archive_user_id on order_archive (user_id, id);
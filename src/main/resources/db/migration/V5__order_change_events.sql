@@ -0,0 +1,14 @@
+-- Sipariş değişiklik akışı: oluşturma ve iptal olayları, id istemcilerin cursor'ı olarak kullanılır.
+-- Saklama süresi dolan olaylar OrderChangeFeed tarafından silinir.
+
+create table order_change_events (
+    id             bigint generated by default as identity,
+    order_id       bigint,
+    user_id        bigint,
+    change_type    varchar(16) not null check (change_type in ('CREATED', 'CANCELED')),
+    payment_status varchar(255) check (payment_status in ('SUCCESS', 'FAILED', 'CANCELED')),
+    occurred_at    timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_order_change_events_occurred_at on order_change_events (occurred_at);
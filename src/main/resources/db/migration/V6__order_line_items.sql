@@ -0,0 +1,4 @@
+-- Paketli kalem saklama: kalemler order_products satırları yerine orders.line_items kolonunda (bkz. LineItemPacker).
+-- Kolon boşsa siparişin kalemleri order_products'tadır; mevcut siparişler LineItemMigrator ile taşınır.
+
+alter table orders add column line_items bytea;
@@ -0,0 +1,17 @@
+-- Eşzamanlı güncellemeler için iyimser kilit (Order.version)
+alter table orders add column version bigint not null default 0;
+
+-- Sepet başına tek başarılı sipariş. orders partition'lı olduğundan cart_id üzerinde kısmi benzersiz index
+-- tanımlanamaz (benzersiz index partition anahtarını içermeli); kısıt bu tablonun birincil anahtarıdır.
+create table order_cart_claims (
+    cart_id  bigint primary key,
+    order_id bigint not null
+);
+create index idx_order_cart_claims_order_id on order_cart_claims (order_id);
+
+-- Mevcut başarılı siparişler; aynı sepetin mükerrer siparişlerinden ilki sahiplenir
+insert into order_cart_claims (cart_id, order_id)
+select distinct on (cart_id) cart_id, id
+from orders
+where payment_status = 'SUCCESS' and cart_id is not null
+order by cart_id, id;
@@ -0,0 +1,2 @@
+-- Deneme sınırını aşan outbox mesajları silinmez; next_attempt_at null yapılarak yayından çıkarılır
+alter table order_outbox add column dead_lettered_at timestamp(6);
@@ -0,0 +1,10 @@
+-- Idempotency-Key'ler kullanıcı bazında ("userId:anahtar") saklanır ve isteğin özetiyle ("userId:cartId") eşleştirilir
+alter table order_idempotency_keys alter column idempotency_key type varchar(160);
+alter table order_idempotency_keys add column fingerprint varchar(64);
+
+-- Mevcut anahtarlar siparişlerinin kullanıcısıyla kapsamlanır
+update order_idempotency_keys k
+set idempotency_key = coalesce(cast(o.user_id as varchar), 'null') || ':' || k.idempotency_key,
+    fingerprint     = coalesce(cast(o.user_id as varchar), 'null') || ':' || coalesce(cast(o.cart_id as varchar), 'null')
+from orders o
+where o.id = k.order_id;
@@ -0,0 +1,92 @@
+package com.micro.order.client;
+
+import com.micro.order.dto.LogRequest;
+import com.micro.order.util.LogOverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LogPublisherTest {
+
+    @Mock
+    private RabbitMQClient rabbitMQClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private LogPublisher publisher(int bufferSize, LogOverflowPolicy policy) {
+        return new LogPublisher(rabbitMQClient, bufferSize, 16, 10, policy, 1, 2);
+    }
+
+    @Test
+    void testDropPolicyCountsOverflow() {
+        // Worker başlatılmadığı için tampon boşaltılmaz
+        LogPublisher publisher = publisher(2, LogOverflowPolicy.DROP);
+
+        publisher.publish("INFO", "a");
+        publisher.publish("INFO", "b");
+        publisher.publish("INFO", "c");
+
+        assertEquals(2, publisher.getQueueDepth());
+        assertEquals(1, publisher.getDroppedCount());
+        verifyNoInteractions(rabbitMQClient);
+    }
+
+    @Test
+    void testBlockPolicyDropsAfterTimeout() {
+        LogPublisher publisher = publisher(1, LogOverflowPolicy.BLOCK);
+
+        publisher.publish("INFO", "a");
+        publisher.publish("INFO", "b");
+
+        assertEquals(1, publisher.getQueueDepth());
+        assertEquals(1, publisher.getDroppedCount());
+    }
+
+    @Test
+    void testSamplePolicyThinsEventsWhenHalfFull() {
+        LogPublisher publisher = publisher(8, LogOverflowPolicy.SAMPLE);
+
+        for (int i = 0; i < 8; i++) {
+            publisher.publish("INFO", "event " + i);
+        }
+
+        // İlk 4 olay doğrudan kabul edilir, sonrasında her 2. olay
+        assertEquals(6, publisher.getQueueDepth());
+        assertEquals(2, publisher.getDroppedCount());
+    }
+
+    @Test
+    void testStopFlushesPendingEvents() {
+        List<LogRequest> sent = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<LogRequest> batch = invocation.getArgument(1);
+            batchSizes.add(batch.size());
+            return sent.addAll(batch);
+        }).when(rabbitMQClient).sendAll(eq(LogPublisher.LOG_QUEUE), anyList());
+
+        LogPublisher publisher = publisher(64, LogOverflowPolicy.DROP);
+        publisher.start();
+        for (int i = 0; i < 40; i++) {
+            publisher.publish("INFO", "event " + i);
+        }
+        publisher.stop();
+
+        assertEquals(40, sent.size());
+        assertEquals(40, publisher.getPublishedCount());
+        assertEquals(0, publisher.getQueueDepth());
+        assertEquals(new LogRequest("order-service", "INFO", "event 0"), sent.get(0));
+        batchSizes.forEach(size -> assertTrue(size <= 16));
+    }
+}
@@ -0,0 +1,115 @@
+package com.micro.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.codec.MessageCodecRegistry;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RabbitMQClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("order.rpc.default.timeout-ms", "50")
+            .withProperty("order.rpc.default.max-concurrent", "2")
+            .withProperty("order.rpc.default.window-size", "4")
+            .withProperty("order.rpc.default.minimum-calls", "2")
+            .withProperty("order.rpc.default.open-duration-ms", "60000");
+
+    // Her çağrıda sıradaki hazır yanıt döner; liste boşsa yanıt hiç gelmez
+    private final List<CompletableFuture<Message>> replies = new ArrayList<>();
+    private final List<Message> sent = new ArrayList<>();
+
+    private RabbitMQClient rabbitMQClient;
+
+    @BeforeEach
+    void setUp() {
+        rabbitMQClient = new RabbitMQClient(mock(RabbitTemplate.class), mock(AsyncRabbitTemplate.class),
+                new MessageCodecRegistry(new ObjectMapper(), MessageCodecRegistry.JSON), meterRegistry, environment) {
+            @Override
+            CompletableFuture<Message> exchange(String queue, Message request) {
+                sent.add(request);
+                return replies.isEmpty() ? new CompletableFuture<>() : replies.remove(0);
+            }
+        };
+    }
+
+    @Test
+    void testSuccessfulReplyIsDecodedAndTimed() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageCodecRegistry.JSON);
+        byte[] body = "{\"id\":1,\"userId\":101,\"products\":[]}".getBytes(StandardCharsets.UTF_8);
+        replies.add(CompletableFuture.completedFuture(new Message(body, properties)));
+
+        CartSchema cart = rabbitMQClient.sendAndReceive("get_cart_request", CartRequest.getCart(1L), CartSchema.class);
+
+        assertEquals(101L, cart.getUserId());
+        assertEquals("50", sent.get(0).getMessageProperties().getExpiration());
+        assertEquals(1, timerCount("get_cart_request", "rpc", "success"));
+        assertEquals(0.0, meterRegistry.counter("order.amqp.timeouts", "queue", "get_cart_request").count());
+    }
+
+    @Test
+    void testMissingReplyTimesOutAndOpensCircuit() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AmqpReplyTimeoutException.class, () ->
+                    rabbitMQClient.sendAndReceive("get_cart_request", CartRequest.getCart(1L), CartSchema.class));
+        }
+        assertEquals(2, timerCount("get_cart_request", "rpc", "timeout"));
+        assertEquals(2.0, meterRegistry.counter("order.amqp.timeouts", "queue", "get_cart_request").count());
+
+        // Hata oranı eşiği aşıldı; sıradaki çağrı kuyruğa gitmeden reddedilir
+        RpcRejectedException rejected = assertThrows(RpcRejectedException.class, () ->
+                rabbitMQClient.sendAndReceive("get_cart_request", CartRequest.getCart(1L), CartSchema.class));
+        assertEquals(RpcRejectedException.Reason.CIRCUIT_OPEN, rejected.getReason());
+        assertEquals(2, sent.size());
+        assertEquals(1.0, meterRegistry.counter("order.rpc.rejected", "queue", "get_cart_request", "reason", "circuit_open").count());
+    }
+
+    @Test
+    void testBulkheadAndDeadlineRejectWithoutSending() {
+        CompletableFuture<CartSchema> first = rabbitMQClient.sendAndReceiveAsync("get_cart_request", CartRequest.getCart(1L), CartSchema.class);
+        CompletableFuture<CartSchema> second = rabbitMQClient.sendAndReceiveAsync("get_cart_request", CartRequest.getCart(2L), CartSchema.class);
+        CompletableFuture<CartSchema> third = rabbitMQClient.sendAndReceiveAsync("get_cart_request", CartRequest.getCart(3L), CartSchema.class);
+
+        assertEquals(RpcRejectedException.Reason.BULKHEAD_FULL, rejection(third).getReason());
+        assertEquals(2, sent.size());
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+
+        // Deadline'ı dolmuş istek hiç gönderilmez
+        CompletableFuture<CartSchema> expired = rabbitMQClient.sendAndReceiveAsync("cart_service_queue",
+                CartRequest.getCart(4L), CartSchema.class, Deadline.after(0));
+        assertEquals(RpcRejectedException.Reason.DEADLINE_EXCEEDED, rejection(expired).getReason());
+        assertEquals(2, sent.size());
+    }
+
+    private static RpcRejectedException rejection(CompletableFuture<?> future) {
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        return assertInstanceOf(RpcRejectedException.class, error.getCause());
+    }
+
+    private long timerCount(String queue, String type, String outcome) {
+        return meterRegistry.get("order.amqp.requests")
+                .tags("queue", queue, "type", type, "outcome", outcome)
+                .timer().count();
+    }
+}
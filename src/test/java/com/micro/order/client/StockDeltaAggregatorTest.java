@@ -0,0 +1,140 @@
+package com.micro.order.client;
+
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.dto.StockUpdateMessage;
+import com.micro.order.entity.OrderProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StockDeltaAggregatorTest {
+
+    @Mock
+    private RabbitMQClient rabbitMQClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testMergesDeltasIntoOneMessagePerDirection() {
+        CompletableFuture<Void> decreaseAck = new CompletableFuture<>();
+        when(rabbitMQClient.sendAndReceiveAsync(eq("product_service_queue"), argThat(action("decrease_stock")), eq(Void.class)))
+                .thenReturn(decreaseAck);
+        when(rabbitMQClient.sendAndReceiveAsync(eq("product_service_queue"), argThat(action("increase_stock")), eq(Void.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // Worker başlatılmıyor; flush elle tetikleniyor
+        StockDeltaAggregator aggregator = new StockDeltaAggregator(rabbitMQClient, 1000, 100);
+        CompletableFuture<Void> first = aggregator.submit(List.of(product(201L, 2), product(202L, 1)), "decrease_stock");
+        CompletableFuture<Void> second = aggregator.submit(List.of(product(201L, 3)), "decrease_stock");
+        CompletableFuture<Void> third = aggregator.submit(List.of(product(202L, 1), product(203L, 4)), "increase_stock");
+        aggregator.flush();
+
+        // Yönler birbirinden düşülmez; 202 her iki mesajda da yer alır
+        ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitMQClient, times(2)).sendAndReceiveAsync(eq("product_service_queue"), messages.capture(), eq(Void.class));
+        assertStockMessage(messages.getAllValues().get(0), "decrease_stock", Map.of(201L, 5, 202L, 1));
+        assertStockMessage(messages.getAllValues().get(1), "increase_stock", Map.of(202L, 1, 203L, 4));
+
+        // Her siparişin future'ı yalnızca kendi yönünün onayını bekler
+        assertTrue(third.isDone());
+        assertFalse(first.isDone() || second.isDone());
+        decreaseAck.complete(null);
+        assertTrue(first.isDone() && second.isDone());
+        assertEquals(3, aggregator.getSubmittedOrderCount());
+        assertEquals(2, aggregator.getPublishedMessageCount());
+    }
+
+    @Test
+    void testFailedDirectionDoesNotFailTheOther() {
+        when(rabbitMQClient.sendAndReceiveAsync(eq("product_service_queue"), argThat(action("decrease_stock")), eq(Void.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(rabbitMQClient.sendAndReceiveAsync(eq("product_service_queue"), argThat(action("increase_stock")), eq(Void.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("product service down")));
+
+        StockDeltaAggregator aggregator = new StockDeltaAggregator(rabbitMQClient, 1000, 100);
+        CompletableFuture<Void> decrease = aggregator.submit(List.of(product(201L, 1)), "decrease_stock");
+        CompletableFuture<Void> increase = aggregator.submit(List.of(product(201L, 1)), "increase_stock");
+        aggregator.flush();
+
+        // Azaltma uygulandı; yalnızca artırmayı taşıyan sipariş yeniden denenir
+        assertTrue(decrease.isDone() && !decrease.isCompletedExceptionally());
+        assertTrue(increase.isCompletedExceptionally());
+    }
+
+    @Test
+    void testInvalidItemRejectsTheWholeSubmit() {
+        StockDeltaAggregator aggregator = new StockDeltaAggregator(rabbitMQClient, 1000, 100);
+        OrderProduct withoutId = new OrderProduct();
+        withoutId.setQuantity(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.submit(List.of(product(201L, 2), withoutId), "decrease_stock"));
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.submit(List.of(product(202L, 1), product(203L, 0)), "increase_stock"));
+        aggregator.flush();
+
+        // Geçerli kalemler de eklenmedi; yayınlanacak değişiklik yok
+        verifyNoInteractions(rabbitMQClient);
+        assertEquals(0, aggregator.getSubmittedOrderCount());
+    }
+
+    @Test
+    void testFlushesWhenProductThresholdReached() {
+        when(rabbitMQClient.sendAndReceiveAsync(anyString(), any(), eq(Void.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        StockDeltaAggregator aggregator = new StockDeltaAggregator(rabbitMQClient, 1000, 2);
+        CompletableFuture<Void> first = aggregator.submit(List.of(product(201L, 1)), "decrease_stock");
+        verifyNoInteractions(rabbitMQClient);
+
+        CompletableFuture<Void> second = aggregator.submit(List.of(product(202L, 1)), "decrease_stock");
+
+        verify(rabbitMQClient, times(1)).sendAndReceiveAsync(eq("product_service_queue"),
+                argThat(action("decrease_stock")), eq(Void.class));
+        assertTrue(first.isDone() && second.isDone());
+    }
+
+    @Test
+    void testFailedAckFailsContributingOrders() {
+        when(rabbitMQClient.sendAndReceiveAsync(anyString(), any(), eq(Void.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("product service down")));
+
+        StockDeltaAggregator aggregator = new StockDeltaAggregator(rabbitMQClient, 0, 100);
+        CompletableFuture<Void> future = aggregator.submit(List.of(product(201L, 1)), "increase_stock");
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private static ArgumentMatcher<Object> action(String action) {
+        return message -> message instanceof StockUpdateMessage update && update.action().equals(action);
+    }
+
+    private static void assertStockMessage(Object message, String action, Map<Long, Integer> amounts) {
+        StockUpdateMessage update = assertInstanceOf(StockUpdateMessage.class, message);
+        assertEquals(action, update.action());
+        assertEquals(amounts, update.products().stream()
+                .collect(Collectors.toMap(ProductSchema::getId, ProductSchema::getAmount)));
+    }
+
+    private static OrderProduct product(long productId, int quantity) {
+        OrderProduct product = new OrderProduct();
+        product.setProductId(productId);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,45 @@
+package com.micro.order.client.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecRegistryTest {
+
+    private final MessageCodecRegistry codecs = new MessageCodecRegistry(new ObjectMapper(), MessageCodecRegistry.JSON);
+
+    @Test
+    void testJsonCodecWritesObjectWithoutStringWrapping() {
+        byte[] body = codecs.defaultCodec().encode(CartRequest.getCart(7L));
+
+        assertEquals("{\"action\":\"get_cart_by_id\",\"cart_id\":7}", new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSmileRoundTripIsSelectedByContentType() {
+        MessageCodec smile = codecs.forContentType(MessageCodecRegistry.SMILE);
+        byte[] body = smile.encode(CartRequest.deleteCart(3L));
+
+        assertEquals(MessageCodecRegistry.SMILE, smile.contentType());
+        assertEquals(CartRequest.deleteCart(3L), smile.decode(body, CartRequest.class));
+    }
+
+    @Test
+    void testUnknownContentTypeFallsBackToJson() {
+        byte[] body = "{\"id\":1,\"userId\":101,\"products\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        CartSchema cart = codecs.forContentType("application/json; charset=UTF-8").decode(body, CartSchema.class);
+
+        assertEquals(101L, cart.getUserId());
+        assertEquals(MessageCodecRegistry.JSON, codecs.forContentType(null).contentType());
+        assertNull(codecs.defaultCodec().decode(new byte[0], CartSchema.class));
+        assertThrows(MessageConversionException.class,
+                () -> codecs.defaultCodec().decode("not json".getBytes(StandardCharsets.UTF_8), CartSchema.class));
+    }
+}
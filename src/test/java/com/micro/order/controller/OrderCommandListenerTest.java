@@ -0,0 +1,111 @@
+package com.micro.order.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.codec.MessageCodecRegistry;
+import com.micro.order.dto.BatchOrderResult;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.OrderCommandReply;
+import com.micro.order.entity.Order;
+import com.micro.order.service.OrderService;
+import com.micro.order.util.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderCommandListenerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+    private final OrderCommandListener listener = new OrderCommandListener(orderService, rabbitMQClient,
+            new MessageCodecRegistry(new ObjectMapper(), MessageCodecRegistry.JSON));
+
+    @Test
+    void testBatchIsAppliedWithOneCallPerCommandType() {
+        Order keyed = new Order();
+        keyed.setId(12L);
+        keyed.setPaymentStatus(PaymentStatus.SUCCESS);
+        when(orderService.createOrder(any(CreateOrderRequest.class), eq("k-1"))).thenReturn(keyed);
+        when(orderService.createOrders(anyList(), anyList())).thenReturn(List.of(
+                new BatchOrderResult(0, 10L, PaymentStatus.SUCCESS, null),
+                BatchOrderResult.failed(1, "Cart is empty or not found for cartId: 2")));
+        when(orderService.cancelOrdersById(List.of(5L, 6L))).thenReturn(Set.of(5L));
+
+        List<Message> batch = List.of(
+                message("{\"action\":\"create_order\",\"user_id\":101,\"cart_id\":1}"),
+                message("{\"action\":\"create_order\",\"user_id\":101,\"cart_id\":2}"),
+                message("{\"action\":\"cancel_order\",\"order_id\":5}"),
+                message("{\"action\":\"cancel_order\",\"order_id\":6}"),
+                message("{\"action\":\"create_order\",\"user_id\":101,\"cart_id\":3,\"idempotency_key\":\"k-1\"}"),
+                message("not json"));
+
+        listener.onMessageBatch(batch);
+
+        verify(orderService, times(1)).createOrders(argThat(requests -> requests.size() == 2
+                && requests.get(0).getCartId() == 1L && requests.get(1).getCartId() == 2L), anyList());
+        verify(orderService, times(1)).cancelOrdersById(List.of(5L, 6L));
+
+        ArgumentCaptor<Object> replies = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitMQClient, times(6)).reply(any(Message.class), replies.capture());
+        List<Object> values = replies.getAllValues();
+        assertEquals(new OrderCommandReply(10L, PaymentStatus.SUCCESS, null), values.get(0));
+        assertEquals("Cart is empty or not found for cartId: 2", ((OrderCommandReply) values.get(1)).error());
+        assertEquals(new OrderCommandReply(5L, PaymentStatus.CANCELED, null), values.get(2));
+        assertNotNull(((OrderCommandReply) values.get(3)).error());
+        assertEquals(new OrderCommandReply(12L, PaymentStatus.SUCCESS, null), values.get(4));
+        assertNotNull(((OrderCommandReply) values.get(5)).error());
+    }
+
+    @Test
+    void testMessageIdIsImplicitIdempotencyKey() {
+        Order stored = new Order();
+        stored.setId(30L);
+        stored.setPaymentStatus(PaymentStatus.SUCCESS);
+        when(orderService.createOrder(any(CreateOrderRequest.class), eq("amqp:m-2"))).thenReturn(stored);
+        when(orderService.createOrders(anyList(), anyList())).thenReturn(List.of(
+                new BatchOrderResult(0, 31L, PaymentStatus.SUCCESS, null)));
+
+        Message first = message("{\"action\":\"create_order\",\"user_id\":101,\"cart_id\":1}");
+        first.getMessageProperties().setMessageId("m-1");
+        Message redelivered = message("{\"action\":\"create_order\",\"user_id\":101,\"cart_id\":2}");
+        redelivered.getMessageProperties().setMessageId("m-2");
+        redelivered.getMessageProperties().setRedelivered(true);
+
+        listener.onMessageBatch(List.of(first, redelivered));
+
+        // İlk teslim toplu yazılır ve anahtarı kaydedilir; yeniden teslim anahtarla tekil yoldan işlenir
+        verify(orderService, times(1)).createOrders(argThat(requests -> requests.size() == 1), eq(List.of("amqp:m-1")));
+        verify(orderService, times(1)).createOrder(argThat(request -> request.getCartId() == 2L), eq("amqp:m-2"));
+    }
+
+    @Test
+    void testFailedReplyDoesNotEscapeBatch() {
+        when(orderService.cancelOrdersById(List.of(5L, 6L))).thenReturn(Set.of(5L, 6L));
+        doThrow(new IllegalStateException("channel closed")).doNothing()
+                .when(rabbitMQClient).reply(any(Message.class), any());
+
+        assertDoesNotThrow(() -> listener.onMessageBatch(List.of(
+                message("{\"action\":\"cancel_order\",\"order_id\":5}"),
+                message("{\"action\":\"cancel_order\",\"order_id\":6}"))));
+
+        // Biri gönderilemese de diğer yanıt gider ve hata sayılır
+        verify(rabbitMQClient, times(2)).reply(any(Message.class), any());
+        assertEquals(1, listener.getFailedReplyCount());
+    }
+
+    private static Message message(String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageCodecRegistry.JSON);
+        properties.setReplyTo("amq.rabbitmq.reply-to.test");
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
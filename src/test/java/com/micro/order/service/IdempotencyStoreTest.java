@@ -0,0 +1,122 @@
+package com.micro.order.service;
+
+import com.micro.order.entity.IdempotencyKey;
+import com.micro.order.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final IdempotencyStore store = new IdempotencyStore(repository, 100, 60_000, 5_000);
+
+    @Test
+    void testConcurrentDuplicateWaitsForFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> store.execute(101L, "key-1", "101:1", () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42L;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Long> duplicate = CompletableFuture.supplyAsync(() -> store.execute(101L, "key-1", "101:1", () -> {
+            executions.incrementAndGet();
+            return 43L;
+        }));
+
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals(42L, first.get(5, TimeUnit.SECONDS));
+        assertEquals(42L, duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testDuplicateTimingOutIsRetryable() throws Exception {
+        IdempotencyStore shortWait = new IdempotencyStore(repository, 100, 60_000, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> shortWait.execute(101L, "key-7", "101:1", () -> {
+            started.countDown();
+            await(release);
+            return 51L;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // İlk çalıştırma sürerken gelen tekrar 503 ile reddedilir, işlem ikinci kez çalışmaz
+        assertThrows(IdempotencyKeyInProgressException.class, () -> shortWait.execute(101L, "key-7", "101:1", () -> 52L));
+        release.countDown();
+        assertEquals(51L, first.get(5, TimeUnit.SECONDS));
+        assertEquals(51L, shortWait.execute(101L, "key-7", "101:1", () -> 53L));
+    }
+
+    @Test
+    void testFailedExecutionIsNotStored() {
+        assertThrows(IllegalStateException.class, () -> store.execute(101L, "key-2", "101:1", () -> {
+            throw new IllegalStateException("cart service down");
+        }));
+        assertEquals(7L, store.execute(101L, "key-2", "101:1", () -> 7L));
+    }
+
+    @Test
+    void testKeyWrittenByAnotherInstanceIsReused() {
+        when(repository.findById("101:key-3")).thenReturn(Optional.empty()).thenReturn(Optional.of(stored("101:key-3", "101:1", 11L)));
+
+        Long orderId = store.execute(101L, "key-3", "101:1", () -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+
+        assertEquals(11L, orderId);
+    }
+
+    @Test
+    void testKeysAreScopedByUser() {
+        assertEquals(21L, store.execute(101L, "key-4", "101:1", () -> 21L));
+        // Başka bir kullanıcının aynı anahtarı ilk kullanıcının siparişini döndürmez
+        assertEquals(22L, store.execute(102L, "key-4", "102:2", () -> 22L));
+        verify(repository).findById("101:key-4");
+        verify(repository).findById("102:key-4");
+    }
+
+    @Test
+    void testKeyReusedWithDifferentRequestIsRejected() {
+        assertEquals(31L, store.execute(101L, "key-5", "101:1", () -> 31L));
+        assertThrows(IdempotencyKeyMismatchException.class, () -> store.execute(101L, "key-5", "101:2", () -> 32L));
+
+        // Başka örneğin yazdığı kayıt da özetle doğrulanır
+        when(repository.findById("101:key-6")).thenReturn(Optional.of(stored("101:key-6", "101:1", 41L)));
+        assertThrows(IdempotencyKeyMismatchException.class, () -> store.execute(101L, "key-6", "101:3", () -> 42L));
+    }
+
+    private static IdempotencyKey stored(String key, String fingerprint, Long orderId) {
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey(key);
+        stored.setFingerprint(fingerprint);
+        stored.setOrderId(orderId);
+        return stored;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
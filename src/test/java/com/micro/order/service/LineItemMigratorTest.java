@@ -0,0 +1,163 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.LineItemMigrationResult;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.dto.StockUpdateMessage;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.repository.LineItemMigrationRepository;
+import com.micro.order.repository.LineItemStorage;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Kalemlerin paketli saklanmasını: mevcut siparişlerin taşınmasını ve paketli siparişlerin iptal/özet yollarını doğrular
+@DataJpaTest
+class LineItemMigratorTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testMigrationMovesRowsIntoPackedColumn() {
+        Order first = persist(101L, product(201L, 2), product(202L, 1));
+        Order second = persist(102L, product(203L, 5));
+        Order empty = persist(103L);
+        entityManager.flush();
+        entityManager.clear();
+
+        LineItemMigrator migrator = new LineItemMigrator(
+                new LineItemMigrationRepository(jdbcTemplate, new SimpleMeterRegistry()), 2);
+        LineItemMigrationResult result = migrator.migrate();
+
+        assertEquals(3, result.orders());
+        assertEquals(2, result.chunks());
+        assertEquals(0, count("select count(*) from order_products"));
+        assertEquals(3, count("select count(*) from orders where line_items is not null"));
+        entityManager.clear();
+
+        Order packed = orderRepository.findWithProductsById(first.getId()).orElseThrow();
+        assertNotNull(packed.getLineItems());
+        assertEquals(List.of(product(201L, 2), product(202L, 1)), packed.getProducts());
+        assertEquals(List.of(product(203L, 5)), orderRepository.findWithProductsById(second.getId()).orElseThrow().getProducts());
+        assertTrue(orderRepository.findWithProductsById(empty.getId()).orElseThrow().getProducts().isEmpty());
+
+        // Tekrar çalıştırıldığında taşınacak sipariş kalmaz
+        assertEquals(0, migrator.migrate().orders());
+    }
+
+    @Test
+    void testPackedOrdersCancelAndRebuild() throws Exception {
+        RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+        UserOrderSummaryWriter summaryWriter = new UserOrderSummaryWriter(jdbcTemplate, new SimpleMeterRegistry());
+        OrderService orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .rabbitMQClient(rabbitMQClient)
+                .objectMapper(objectMapper)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .userSummaryWriter(summaryWriter)
+                .lineItemStorage(new LineItemStorage("packed"))
+                .payments(() -> true)
+                .build();
+        Order first = createOrder(orderService, rabbitMQClient, 1L, new ProductSchema(201L, 2), new ProductSchema(202L, 1));
+        createOrder(orderService, rabbitMQClient, 2L, new ProductSchema(201L, 3));
+        entityManager.clear();
+
+        assertEquals(0, count("select count(*) from order_products"));
+        OrderResponse response = orderService.getOrderById(first.getId());
+        assertArrayEquals(new long[]{201L, 202L}, response.productIds());
+        assertArrayEquals(new int[]{2, 1}, response.quantities());
+
+        // Özet yeniden hesaplandığında paketli kalemler de sayılır
+        summaryWriter.rebuild(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(Map.of(201L, 5L, 202L, 1L), productTotals(101L));
+
+        outboxRepository.deleteAll();
+        orderService.cancelOrders(new BatchCancelRequest(null, 101L, null, null), progress -> { });
+
+        StockUpdateMessage update = objectMapper.readValue(outboxRepository.findAll().get(0).getPayload(), StockUpdateMessage.class);
+        assertEquals("increase_stock", update.action());
+        update.products().forEach(product -> assertEquals(product.getId() == 201L ? 5 : 1, product.getAmount()));
+        assertTrue(productTotals(101L).isEmpty());
+    }
+
+    private Order createOrder(OrderService orderService, RabbitMQClient rabbitMQClient, Long cartId, ProductSchema... products) {
+        CartSchema cart = new CartSchema();
+        cart.setId(cartId);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(products));
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), eq(CartRequest.getCart(cartId)), eq(CartSchema.class), any()))
+                .thenReturn(cart);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(cartId);
+        return orderService.createOrder(request);
+    }
+
+    private Map<Long, Long> productTotals(Long userId) {
+        Map<Long, Long> totals = new HashMap<>();
+        jdbcTemplate.query("select product_id, quantity from order_user_product_totals where user_id = ?",
+                rs -> { totals.put(rs.getLong(1), rs.getLong(2)); }, userId);
+        return totals;
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private Order persist(Long userId, OrderProduct... products) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setPaymentStatus(PaymentStatus.SUCCESS);
+        order.setProducts(new ArrayList<>(List.of(products)));
+        return entityManager.persist(order);
+    }
+
+    private static OrderProduct product(long productId, int quantity) {
+        return new OrderProduct(productId, quantity);
+    }
+}
@@ -0,0 +1,110 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.OrderArchiveRepository;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Eski ve iptal edilmiş siparişlerin arşive taşınmasını ve arşivden okunmasını doğrular
+@DataJpaTest
+class OrderArchiverTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private OrderArchiver orderArchiver;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        OrderCache orderCache = new OrderCache(0, 0, 0, 0);
+        orderArchiver = new OrderArchiver(orderRepository,
+                new OrderArchiveRepository(jdbcTemplate, 100, new SimpleMeterRegistry()),
+                transactionTemplate, orderCache, 365, 30, 1);
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .transactionTemplate(transactionTemplate)
+                .orderCache(orderCache)
+                .archivedOrderRepository(archivedOrderRepository)
+                .build();
+    }
+
+    @Test
+    void testOldAndCanceledOrdersMoveToArchive() {
+        LocalDateTime now = LocalDateTime.now();
+        Order old = persist(now.minusDays(400), null, PaymentStatus.SUCCESS, false, product(201L, 2), product(202L, 1));
+        Order canceled = persist(now.minusDays(60), now.minusDays(40), PaymentStatus.CANCELED, true, product(203L, 1));
+        Order recentlyCanceled = persist(now.minusDays(5), now.minusDays(1), PaymentStatus.CANCELED, true, product(204L, 1));
+        Order live = persist(now.minusDays(1), null, PaymentStatus.SUCCESS, false, product(205L, 3));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, orderArchiver.archive(now.minusDays(365), now.minusDays(30)));
+
+        assertEquals(List.of(recentlyCanceled.getId(), live.getId()),
+                orderRepository.findAll().stream().map(Order::getId).sorted().toList());
+        assertEquals(2, archivedOrderRepository.count());
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from order_products", Integer.class));
+
+        // Arşivdeki siparişe yalnızca istendiğinde ulaşılır; kalemler aynen geri gelir
+        assertThrows(RuntimeException.class, () -> orderService.getOrderById(old.getId()));
+        OrderResponse archived = orderService.getOrderById(old.getId(), true);
+        assertEquals(PaymentStatus.SUCCESS, archived.paymentStatus());
+        assertArrayEquals(new long[]{201L, 202L}, archived.productIds());
+        assertArrayEquals(new int[]{2, 1}, archived.quantities());
+
+        assertEquals(2, orderService.getOrdersByUserId(101L).size());
+        assertEquals(List.of(old.getId(), canceled.getId(), recentlyCanceled.getId(), live.getId()),
+                orderService.getOrdersByUserId(101L, true).stream().map(OrderResponse::id).toList());
+
+        // Tekrar çalıştırıldığında taşınacak sipariş kalmaz
+        assertEquals(0, orderArchiver.archive(now.minusDays(365), now.minusDays(30)));
+    }
+
+    private Order persist(LocalDateTime createdAt, LocalDateTime updatedAt, PaymentStatus paymentStatus,
+                          boolean canceled, OrderProduct... products) {
+        Order order = new Order();
+        order.setUserId(101L);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(updatedAt);
+        order.setPaymentStatus(paymentStatus);
+        order.setCanceled(canceled);
+        order.setProducts(new ArrayList<>(List.of(products)));
+        return entityManager.persist(order);
+    }
+
+    private static OrderProduct product(long productId, int quantity) {
+        return new OrderProduct(productId, quantity);
+    }
+}
@@ -0,0 +1,147 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.dto.BatchCancelProgress;
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.StockUpdateMessage;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Toplu iptalin set tabanlı sorgularını ve birleştirilmiş stok iadesini gerçek veritabanında doğrular
+@DataJpaTest
+class OrderBatchCancelTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .objectMapper(objectMapper)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .orderCache(new OrderCache(10, 10, 60_000, 2000))
+                .build();
+    }
+
+    @Test
+    void testCancelByUserMergesStockOfPaidOrders() throws Exception {
+        persist(101L, PaymentStatus.SUCCESS, false, product(201L, 2), product(202L, 1));
+        persist(101L, PaymentStatus.SUCCESS, false, product(201L, 3));
+        persist(101L, PaymentStatus.FAILED, false, product(203L, 7));
+        persist(101L, PaymentStatus.CANCELED, true, product(204L, 1));
+        persist(102L, PaymentStatus.SUCCESS, false, product(201L, 9));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<BatchCancelProgress> progress = new ArrayList<>();
+        BatchCancelProgress result = orderService.cancelOrders(
+                new BatchCancelRequest(null, 101L, null, null), progress::add);
+
+        assertEquals(new BatchCancelProgress(3, 3, true), result);
+        assertEquals(result, progress.get(progress.size() - 1));
+        orderRepository.findByUserId(101L).forEach(order -> {
+            assertTrue(order.isCanceled());
+            assertEquals(PaymentStatus.CANCELED, order.getPaymentStatus());
+        });
+        assertFalse(orderRepository.findByUserId(102L).get(0).isCanceled());
+
+        // Ödemesi başarısız sipariş (203) iade edilmez; 201 tek kalemde toplanır
+        List<OutboxMessage> outbox = outboxRepository.findAll();
+        assertEquals(1, outbox.size());
+        StockUpdateMessage update = objectMapper.readValue(outbox.get(0).getPayload(), StockUpdateMessage.class);
+        assertEquals("increase_stock", update.action());
+        assertEquals(2, update.products().size());
+        update.products().forEach(product -> assertEquals(product.getId() == 201L ? 5 : 1, product.getAmount()));
+    }
+
+    @Test
+    void testCancelByIdsSkipsAlreadyCanceledOrders() {
+        Order first = persist(101L, PaymentStatus.SUCCESS, false, product(201L, 1));
+        Order second = persist(101L, PaymentStatus.SUCCESS, true, product(201L, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchCancelProgress result = orderService.cancelOrders(
+                new BatchCancelRequest(List.of(second.getId(), first.getId(), first.getId()), null, null, null),
+                progress -> { });
+
+        assertEquals(new BatchCancelProgress(2, 1, true), result);
+        assertEquals(1, outboxRepository.count());
+    }
+
+    @Test
+    void testNullProductIdDoesNotFailTheChunk() throws Exception {
+        OrderProduct legacy = new OrderProduct();
+        legacy.setQuantity(4);
+        persist(101L, PaymentStatus.SUCCESS, false, legacy, product(201L, 2));
+        persist(101L, PaymentStatus.SUCCESS, false, product(201L, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchCancelProgress result = orderService.cancelOrders(
+                new BatchCancelRequest(null, 101L, null, null), progress -> { });
+
+        assertEquals(new BatchCancelProgress(2, 2, true), result);
+        // Ürün id'si olmayan kalem iade edilmez, diğerleri birleştirilir
+        StockUpdateMessage update = objectMapper.readValue(outboxRepository.findAll().get(0).getPayload(),
+                StockUpdateMessage.class);
+        assertEquals(1, update.products().size());
+        assertEquals(201L, update.products().get(0).getId());
+        assertEquals(3, update.products().get(0).getAmount());
+    }
+
+    @Test
+    void testRequestWithoutCriteriaIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchCancelRequest(List.of(), null, null, null));
+    }
+
+    private Order persist(Long userId, PaymentStatus paymentStatus, boolean canceled, OrderProduct... products) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setPaymentStatus(paymentStatus);
+        order.setCanceled(canceled);
+        order.setProducts(new ArrayList<>(List.of(products)));
+        return entityManager.persist(order);
+    }
+
+    private static OrderProduct product(long productId, int quantity) {
+        OrderProduct product = new OrderProduct();
+        product.setProductId(productId);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,232 @@
+package com.micro.order.service;
+
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.dto.BatchOrderResult;
+import com.micro.order.dto.CancelOrderRequest;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.entity.Order;
+import com.micro.order.repository.CartClaimRepository;
+import com.micro.order.repository.OrderBatchRepository;
+import com.micro.order.repository.OrderIdAllocator;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Aynı sepet için eşzamanlı siparişlerde yalnızca birinin başarılı olduğunu (örnek içi kilit ve
+// örnekler arası order_cart_claims kısıtı; toplu siparişte yalnızca sepetini kaybeden kalem) ve siparişlerin iyimser kilidini doğrular.
+// İstekler ayrı iş parçacıklarında commit edildiğinden test transaction'ı kullanılmaz.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderCartConcurrencyTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        jdbcTemplate.update("delete from order_cart_claims");
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentOrdersForSameCartWaitOnLock() throws Exception {
+        RabbitMQClient rabbitMQClient = cartClient(1L, () -> Thread.sleep(200));
+        OrderService orderService = orderService(rabbitMQClient, new CartLocks(16, 5000, new SimpleMeterRegistry()));
+
+        List<Throwable> outcomes = race(orderService, orderService, 1L);
+
+        // İkinci istek kilidi bekler, ardından sepetin başarılı siparişini görür; sepet ikinci kez istenmez
+        assertEquals(1, outcomes.stream().filter(error -> error == null).count());
+        assertInstanceOf(DuplicateOrderException.class, outcomes.stream().filter(error -> error != null).findFirst().orElseThrow());
+        assertEquals(1, orderRepository.count());
+        verify(rabbitMQClient, times(1)).sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any());
+    }
+
+    @Test
+    void testLockTimeoutIsRetryableNotDuplicate() throws Exception {
+        // İlk isteğin sepet yanıtı kilit bekleme süresinden uzun sürer
+        RabbitMQClient rabbitMQClient = cartClient(6L, () -> Thread.sleep(500));
+        OrderService orderService = orderService(rabbitMQClient, new CartLocks(16, 100, new SimpleMeterRegistry()));
+
+        List<Throwable> outcomes = race(orderService, orderService, 6L);
+
+        assertEquals(1, outcomes.stream().filter(error -> error == null).count());
+        assertInstanceOf(CartBusyException.class, outcomes.stream().filter(error -> error != null).findFirst().orElseThrow());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    void testClaimRejectsRaceAcrossInstances() throws Exception {
+        // İki örnek: ayrı kilitler, ikisi de sepeti okuyup ödemeyi aldıktan sonra yazar
+        CyclicBarrier bothFetched = new CyclicBarrier(2);
+        RabbitMQClient rabbitMQClient = cartClient(2L, () -> bothFetched.await(5, TimeUnit.SECONDS));
+        OrderService first = orderService(rabbitMQClient, new CartLocks(16, 5000, new SimpleMeterRegistry()));
+        OrderService second = orderService(rabbitMQClient, new CartLocks(16, 5000, new SimpleMeterRegistry()));
+
+        List<Throwable> outcomes = race(first, second, 2L);
+
+        assertEquals(1, outcomes.stream().filter(error -> error == null).count());
+        assertInstanceOf(DuplicateOrderException.class, outcomes.stream().filter(error -> error != null).findFirst().orElseThrow());
+        // Reddedilen siparişin transaction'ı (sipariş ve outbox mesajları) geri alınır
+        assertEquals(1, orderRepository.count());
+        assertEquals(2, outboxRepository.count());
+    }
+
+    @Test
+    void testBatchRejectsOnlyCartsClaimedByAnotherInstance() {
+        // Sepet 5 istenirken başka bir örnek onun için başarılı sipariş yazar
+        RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+        for (long cartId : new long[]{4L, 5L}) {
+            when(rabbitMQClient.sendAndReceiveAsync(eq("get_cart_request"), eq(CartRequest.getCart(cartId)), eq(CartSchema.class), any()))
+                    .thenAnswer(invocation -> {
+                        if (cartId == 5L) {
+                            jdbcTemplate.update("insert into order_cart_claims (cart_id, order_id) values (5, 777)");
+                        }
+                        return CompletableFuture.completedFuture(cart(cartId));
+                    });
+        }
+        OrderIdAllocator idAllocator = mock(OrderIdAllocator.class);
+        when(idAllocator.allocate(anyInt())).thenAnswer(invocation -> LongStream.range(9001, 9001 + invocation.<Integer>getArgument(0)).toArray());
+        CartClaimRepository claims = new CartClaimRepository(jdbcTemplate, new SimpleMeterRegistry());
+        OrderService orderService = orderServiceBuilder(rabbitMQClient, new CartLocks(16, 5000, new SimpleMeterRegistry()))
+                .orderBatchRepository(new OrderBatchRepository(jdbcTemplate, idAllocator, claims, 500, new SimpleMeterRegistry()))
+                .build();
+
+        List<BatchOrderResult> results = orderService.createOrders(List.of(request(4L), request(5L)));
+
+        // Yalnızca sepetini kaybeden kalem başarısız olur; batch'in geri kalanı yazılır
+        assertEquals(PaymentStatus.SUCCESS, results.get(0).paymentStatus());
+        assertNull(results.get(1).orderId());
+        assertEquals("Cart already has a successful order, cartId: 5", results.get(1).error());
+        assertEquals(List.of(results.get(0).orderId()), orderRepository.findAll().stream().map(Order::getId).toList());
+        assertEquals(777L, jdbcTemplate.queryForObject("select order_id from order_cart_claims where cart_id = 5", Long.class));
+        assertEquals(2, outboxRepository.count());
+    }
+
+    @Test
+    void testCancelReleasesCartAndVersionDetectsStaleWrites() {
+        OrderService orderService = orderService(cartClient(3L, () -> { }), new CartLocks(16, 5000, new SimpleMeterRegistry()));
+        Order order = orderService.createOrder(request(3L));
+        assertThrows(DuplicateOrderException.class, () -> orderService.createOrder(request(3L)));
+
+        Order stale = orderRepository.findWithProductsById(order.getId()).orElseThrow();
+        orderService.cancelOrder(new CancelOrderRequest(order.getId()));
+
+        // İptal edilen sipariş sepeti serbest bırakır
+        Order reordered = orderService.createOrder(request(3L));
+        assertEquals(PaymentStatus.SUCCESS, reordered.getPaymentStatus());
+
+        // İptalden önce okunmuş kopya yazılamaz
+        stale.setUpdatedAt(stale.getCreatedAt());
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> orderRepository.save(stale));
+        assertTrue(orderRepository.findById(order.getId()).orElseThrow().isCanceled());
+    }
+
+    // İki isteği aynı anda başlat; her biri için hata (başarılıysa null) döner
+    private List<Throwable> race(OrderService first, OrderService second, Long cartId) throws Exception {
+        Future<Order> a = executor.submit(() -> first.createOrder(request(cartId)));
+        Future<Order> b = executor.submit(() -> second.createOrder(request(cartId)));
+        return Arrays.asList(outcome(a), outcome(b));
+    }
+
+    private static Throwable outcome(Future<Order> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private OrderService orderService(RabbitMQClient rabbitMQClient, CartLocks cartLocks) {
+        return orderServiceBuilder(rabbitMQClient, cartLocks).build();
+    }
+
+    private OrderServiceBuilder orderServiceBuilder(RabbitMQClient rabbitMQClient, CartLocks cartLocks) {
+        return new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .rabbitMQClient(rabbitMQClient)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .cartLocks(cartLocks)
+                .cartClaimRepository(new CartClaimRepository(jdbcTemplate, new SimpleMeterRegistry()))
+                .payments(() -> true);
+    }
+
+    // Sepet yanıtını beforeReply çalıştıktan sonra dönen sahte istemci
+    private static RabbitMQClient cartClient(Long cartId, BeforeReply beforeReply) {
+        CartSchema cart = cart(cartId);
+        RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), eq(CartRequest.getCart(cartId)), eq(CartSchema.class), any()))
+                .thenAnswer(invocation -> {
+                    beforeReply.run();
+                    return cart;
+                });
+        return rabbitMQClient;
+    }
+
+    private static CartSchema cart(Long cartId) {
+        CartSchema cart = new CartSchema();
+        cart.setId(cartId);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 1)));
+        return cart;
+    }
+
+    private static CreateOrderRequest request(Long cartId) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(cartId);
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface BeforeReply {
+        void run() throws Exception;
+    }
+}
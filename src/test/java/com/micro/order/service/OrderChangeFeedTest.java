@@ -0,0 +1,224 @@
+package com.micro.order.service;
+
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.OrderChangePage;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderChangeEvent;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.repository.OrderChangeRepository;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.OrderChangeType;
+import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Değişiklik akışının sıralı yayınını, bellek kuyruğu/veritabanı okumalarını ve long-poll beklemesini doğrular
+@DataJpaTest
+class OrderChangeFeedTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private OrderChangeRepository changeRepository;
+    private long seed;
+
+    @BeforeEach
+    void setUp() {
+        changeRepository = new OrderChangeRepository(jdbcTemplate, new SimpleMeterRegistry());
+        // Akış ilk okumada tablonun sonundan başlar; sonraki olaylar bu olaydan itibaren ardışık numaralanır
+        changeRepository.append(List.of(change(1L)));
+        seed = changeRepository.maxSequence();
+    }
+
+    @Test
+    void testReadsFromTailAndFallsBackToDatabase() {
+        OrderChangeFeed feed = feed(2, 5000);
+        feed.poll();
+        changeRepository.append(List.of(change(10L), change(11L), change(12L)));
+        feed.poll();
+
+        assertEquals(seed + 3, feed.getHighWater());
+        assertTrue(feed.read(null, 10).changes().isEmpty());
+
+        // Bellek kuyruğunda son iki olay var; daha eski cursor veritabanından okunur
+        OrderChangePage fromDatabase = feed.read(seed, 10);
+        assertEquals(List.of(10L, 11L, 12L), orderIds(fromDatabase));
+        assertEquals(seed + 3, fromDatabase.cursor());
+        assertFalse(fromDatabase.truncated());
+
+        OrderChangePage fromTail = feed.read(seed + 1, 1);
+        assertEquals(List.of(11L), orderIds(fromTail));
+        assertEquals(seed + 2, fromTail.cursor());
+
+        // Saklama süresi dolan olaylar silinince istemciye kayıp bildirilir
+        jdbcTemplate.update("delete from order_change_events where id <= ?", seed + 1);
+        assertTrue(feed.read(seed - 1, 10).truncated());
+    }
+
+    @Test
+    void testWaitsForGapUntilTimeout() {
+        OrderChangeFeed feed = feed(10, 60_000);
+        feed.poll();
+        changeRepository.append(List.of(change(10L), change(11L), change(12L)));
+        // Ortadaki olayın transaction'ı henüz commit edilmemiş gibi
+        jdbcTemplate.update("delete from order_change_events where id = ?", seed + 2);
+
+        feed.poll();
+        assertEquals(seed + 1, feed.getHighWater());
+
+        jdbcTemplate.update("insert into order_change_events (id, order_id, change_type, occurred_at) values (?, ?, ?, ?)",
+                seed + 2, 11L, OrderChangeType.CREATED.name(), LocalDateTime.now());
+        feed.poll();
+        assertEquals(List.of(10L, 11L, 12L), orderIds(feed.read(seed, 10)));
+
+        // Süresi dolan boşluk geri alınmış transaction kabul edilip atlanır
+        OrderChangeFeed impatient = feed(10, 0);
+        impatient.poll();
+        changeRepository.append(List.of(change(20L), change(21L)));
+        jdbcTemplate.update("delete from order_change_events where id = ?", seed + 4);
+        impatient.poll();
+        assertEquals(seed + 5, impatient.getHighWater());
+        assertEquals(List.of(21L), orderIds(impatient.read(seed + 3, 10)));
+    }
+
+    @Test
+    void testLateEventAfterSkippedGapIsMovedToEnd() {
+        OrderChangeFeed feed = feed(10, 0);
+        feed.poll();
+        changeRepository.append(List.of(change(30L), change(31L), change(32L)));
+        // Ortadaki transaction boşluk süresinden sonra commit edilir
+        jdbcTemplate.update("delete from order_change_events where id = ?", seed + 2);
+        feed.poll();
+        assertEquals(seed + 3, feed.getHighWater());
+
+        insertChange(seed + 2, 31L);
+        feed.poll();
+
+        // Cursor'ı boşluğu geçmiş istemci geç gelen olayı yeni sıra numarasıyla alır
+        OrderChangePage late = feed.read(seed + 3, 10);
+        assertEquals(List.of(31L), orderIds(late));
+        assertTrue(late.cursor() > seed + 3);
+        assertEquals(List.of(30L, 32L, 31L), orderIds(feed.read(seed, 10)));
+    }
+
+    @Test
+    void testGapAtStartupIsTracked() {
+        changeRepository.append(List.of(change(40L), change(41L), change(42L)));
+        // Açılışta ortadaki olayın transaction'ı sürüyor
+        jdbcTemplate.update("delete from order_change_events where id = ?", seed + 2);
+        OrderChangeFeed feed = feed(10, 5000);
+        feed.poll();
+        assertEquals(seed + 3, feed.getHighWater());
+
+        insertChange(seed + 2, 41L);
+        feed.poll();
+
+        assertEquals(List.of(41L), orderIds(feed.read(seed + 3, 10)));
+    }
+
+    @Test
+    void testAwaitCompletesWhenChangeIsPublished() {
+        OrderChangeFeed feed = feed(10, 5000);
+        feed.poll();
+
+        CompletableFuture<OrderChangePage> waiting = feed.await(null, 10, 5000);
+        assertFalse(waiting.isDone());
+        assertEquals(1, feed.getWaiterCount());
+
+        changeRepository.append(List.of(change(10L)));
+        feed.poll();
+
+        OrderChangePage page = waiting.join();
+        assertEquals(List.of(10L), orderIds(page));
+        assertEquals(0, feed.getWaiterCount());
+
+        // Yeni olay gelmezse bekleme süresi sonunda boş sayfa döner
+        OrderChangePage empty = feed.await(page.cursor(), 10, 50).join();
+        assertTrue(empty.changes().isEmpty());
+        assertEquals(page.cursor(), empty.cursor());
+    }
+
+    @Test
+    void testBatchCancelAppendsChangeEvents() {
+        Order first = persist(101L, PaymentStatus.SUCCESS, false);
+        Order second = persist(102L, PaymentStatus.FAILED, false);
+        persist(103L, PaymentStatus.CANCELED, true);
+        entityManager.flush();
+        entityManager.clear();
+        OrderService orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .orderChangeRepository(changeRepository)
+                .build();
+        OrderChangeFeed feed = feed(10, 5000);
+        feed.poll();
+
+        orderService.cancelOrders(new BatchCancelRequest(null, null, LocalDateTime.now().minusDays(1), null), progress -> { });
+        feed.poll();
+
+        // Zaten iptal edilmiş sipariş için olay eklenmez
+        List<OrderChangeEvent> changes = feed.read(seed, 10).changes();
+        assertEquals(List.of(first.getId(), second.getId()), changes.stream().map(OrderChangeEvent::getOrderId).toList());
+        assertEquals(List.of(101L, 102L), changes.stream().map(OrderChangeEvent::getUserId).toList());
+        changes.forEach(change -> {
+            assertEquals(OrderChangeType.CANCELED, change.getType());
+            assertEquals(PaymentStatus.CANCELED, change.getPaymentStatus());
+        });
+    }
+
+    private OrderChangeFeed feed(int tailSize, long gapTimeoutMs) {
+        return new OrderChangeFeed(changeRepository, tailSize, 100, gapTimeoutMs, 600_000, 5000, 72);
+    }
+
+    private void insertChange(long sequence, Long orderId) {
+        jdbcTemplate.update("insert into order_change_events (id, order_id, change_type, occurred_at) values (?, ?, ?, ?)",
+                sequence, orderId, OrderChangeType.CREATED.name(), LocalDateTime.now());
+    }
+
+    private Order persist(Long userId, PaymentStatus paymentStatus, boolean canceled) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setPaymentStatus(paymentStatus);
+        order.setCanceled(canceled);
+        order.setProducts(new ArrayList<>(List.of(new OrderProduct(201L, 1))));
+        return entityManager.persist(order);
+    }
+
+    private static OrderChangeEvent change(Long orderId) {
+        return OrderChangeEvent.of(OrderChangeType.CREATED, orderId, 101L, PaymentStatus.SUCCESS, LocalDateTime.now());
+    }
+
+    private static List<Long> orderIds(OrderChangePage page) {
+        return page.changes().stream().map(OrderChangeEvent::getOrderId).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderPage;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.OrderProduct;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Liste uçlarının sipariş sayısından bağımsız, sabit sayıda SQL çalıştırdığını doğrular
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderReadQueryCountTest {
+
+    private static final int ORDER_COUNT = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private OrderService orderService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .objectMapper(objectMapper)
+                .transactionTemplate(transactionTemplate)
+                .build();
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            order.setUserId(101L);
+            order.setCartId((long) i);
+            order.setCreatedAt(LocalDateTime.now());
+            order.setPaymentStatus(PaymentStatus.SUCCESS);
+            order.setProducts(new ArrayList<>(List.of(product(201L, 2), product(202L, 1))));
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testGetOrdersByUserIdUsesSingleQuery() throws Exception {
+        List<OrderResponse> orders = orderService.getOrdersByUserId(101L);
+        String json = objectMapper.writeValueAsString(orders);
+
+        assertEquals(ORDER_COUNT, orders.size());
+        assertTrue(json.contains("\"productId\":202"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetOrdersPageUsesTwoQueries() throws Exception {
+        OrderPage page = orderService.getOrders(OrderFilter.none(), null, 10);
+        String json = objectMapper.writeValueAsString(page);
+
+        assertEquals(10, page.orders().size());
+        assertNotNull(page.nextCursor());
+        page.orders().forEach(order -> assertEquals(2, order.productIds().length));
+        assertTrue(json.contains("\"productId\":201"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private static OrderProduct product(long productId, int quantity) {
+        OrderProduct product = new OrderProduct();
+        product.setProductId(productId);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,172 @@
+package com.micro.order.service;
+
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.config.DataSourceConfig;
+import com.micro.order.dto.CancelOrderRequest;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderResponse;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.entity.Order;
+import com.micro.order.repository.CartClaimRepository;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.support.OrderServiceBuilder;
+import com.micro.order.util.PaymentStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Okuma/yazma yönlendirmesini iki ayrı H2 veritabanıyla doğrular: replika yalnızca replicate() çağrılınca
+// birincilin kopyası olur, arada geride kalmış bir replika gibi davranır.
+// Okumalar test transaction'ına katılırsa birincilde kalacağından test transaction'ı kullanılmaz.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "order.datasource.replica.url=jdbc:h2:mem:order-replica;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DataSourceConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderReadRoutingTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    private JdbcTemplate replicaJdbcTemplate;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        replicate();
+
+        CartSchema cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 2)));
+        RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), eq(CartRequest.getCart(1L)), eq(CartSchema.class), any()))
+                .thenReturn(cart);
+        // Önbellek kapalı, read-your-writes süresi test boyunca geçerli
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .rabbitMQClient(rabbitMQClient)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .orderCache(new OrderCache(0, 0, 0, 60_000))
+                .cartClaimRepository(new CartClaimRepository(jdbcTemplate, new SimpleMeterRegistry()))
+                .payments(() -> true)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from order_cart_claims");
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void testListReadsGoToReplica() {
+        Order order = new Order();
+        order.setUserId(202L);
+        order.setCartId(2L);
+        order.setPaymentStatus(PaymentStatus.FAILED);
+        order.setCreatedAt(LocalDateTime.now());
+        orderRepository.save(order);
+
+        // Replika henüz birincile yetişmedi
+        assertTrue(orderService.getOrders(OrderFilter.none(), null, 50).orders().isEmpty());
+        assertTrue(orderService.getOrdersByUserId(202L).isEmpty());
+        assertEquals(1, orderRepository.count());
+
+        replicate();
+        assertEquals(1, orderService.getOrders(OrderFilter.none(), null, 50).orders().size());
+        assertEquals(List.of(order.getId()), orderService.getOrdersByUserId(202L).stream().map(OrderResponse::id).toList());
+    }
+
+    @Test
+    void testWritesAndOwnReadsStayOnPrimary() {
+        Order created = orderService.createOrder(request());
+
+        // Yazma replikaya gitmez
+        assertEquals(0, replicaJdbcTemplate.queryForObject("select count(*) from orders", Integer.class));
+        // Kullanıcı ve sipariş read-your-writes süresinde birincilden okunur
+        assertEquals(created.getId(), orderService.getOrderById(created.getId()).id());
+        assertEquals(1, orderService.getOrdersByUserId(101L).size());
+        // Yazma yolundaki okumalar (iptal) replikaya yönlenmez
+        Order canceled = orderService.cancelOrder(new CancelOrderRequest(created.getId()));
+        assertTrue(canceled.isCanceled());
+        assertTrue(orderService.getOrdersByUserId(101L).get(0).canceled());
+    }
+
+    @Test
+    void testClientWriteTimeRoutesReadsOnAnotherInstance() {
+        // Aynı veritabanlarını kullanan ikinci örnek; birinci örneğin yazmalarını görmez
+        OrderService otherInstance = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .transactionTemplate(transactionTemplate)
+                .orderCache(new OrderCache(10, 10, 60_000, 60_000))
+                .build();
+        long before = System.currentTimeMillis();
+        Order created = orderService.createOrder(request());
+        long lastWriteAt = System.currentTimeMillis();
+
+        // Yazma zamanı bilinmezse replikadan okunur (henüz kopyalanmadı)
+        assertTrue(otherInstance.getOrdersByUserId(101L, false, null).isEmpty());
+        assertTrue(otherInstance.getOrdersByUserId(101L, false, before - 120_000).isEmpty());
+        // İstemcinin taşıdığı yazma zamanı süre içindeyse önbellek atlanır, birincilden okunur
+        assertEquals(1, otherInstance.getOrdersByUserId(101L, false, lastWriteAt).size());
+        assertEquals(created.getId(), otherInstance.getOrderById(created.getId(), false, lastWriteAt).id());
+    }
+
+    // Birincil veritabanını replikaya kopyala (şema ve veri)
+    private void replicate() {
+        List<String> script = jdbcTemplate.queryForList("script", String.class);
+        replicaJdbcTemplate.execute("drop all objects");
+        script.forEach(replicaJdbcTemplate::execute);
+    }
+
+    private static CreateOrderRequest request() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(1L);
+        return request;
+    }
+}
@@ -1,24 +1,49 @@
 package com.micro.order.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.LogPublisher;
 import com.micro.order.client.RabbitMQClient;
+import com.micro.order.dto.BatchOrderResult;
 import com.micro.order.dto.CancelOrderRequest;
+import com.micro.order.dto.CartRequest;
 import com.micro.order.dto.CartSchema;
 import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.OrderFilter;
+import com.micro.order.dto.OrderPage;
+import com.micro.order.dto.OrderResponse;
 import com.micro.order.dto.ProductSchema;
+import com.micro.order.entity.IdempotencyKey;
 import com.micro.order.entity.Order;
 import com.micro.order.entity.OrderProduct;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.IdempotencyKeyRepository;
+import com.micro.order.repository.OrderBatchRepository;
+import com.micro.order.repository.OrderChangeRepository;
+import com.micro.order.repository.OrderExportRepository;
 import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.support.OrderServiceBuilder;
 import com.micro.order.util.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,6 +57,33 @@ class OrderServiceTest {
     @Mock
     private RabbitMQClient rabbitMQClient;
 
+    @Mock
+    private LogPublisher logPublisher;
+
+    @Mock
+    private OrderExportRepository orderExportRepository;
+
+    @Mock
+    private OrderBatchRepository orderBatchRepository;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private UserOrderSummaryWriter userSummaryWriter;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private OrderChangeRepository orderChangeRepository;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -39,10 +91,31 @@ class OrderServiceTest {
 
     private Order mockOrder;
 
+    private OrderCache orderCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        orderService = new OrderService(orderRepository, rabbitMQClient, objectMapper);
+        orderCache = new OrderCache(100, 100, 60_000, 2000);
+        meterRegistry = new SimpleMeterRegistry();
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .rabbitMQClient(rabbitMQClient)
+                .objectMapper(objectMapper)
+                .logPublisher(logPublisher)
+                .orderExportRepository(orderExportRepository)
+                .orderBatchRepository(orderBatchRepository)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(new TransactionTemplate(transactionManager))
+                .orderCache(orderCache)
+                .meterRegistry(meterRegistry)
+                .idempotencyStore(new IdempotencyStore(idempotencyKeyRepository, 100, 60_000, 1_000))
+                .userSummaryWriter(userSummaryWriter)
+                .archivedOrderRepository(archivedOrderRepository)
+                .orderChangeRepository(orderChangeRepository)
+                .build();
 
         // Mock Order Nesnesi
         mockOrder = new Order();
@@ -67,8 +140,8 @@ class OrderServiceTest {
         cart.setProducts(List.of(new ProductSchema(201L, 2), new ProductSchema(202L, 1)));
 
         // Mock RabbitMQ yanıtları
-        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), anyString()))
-                .thenReturn(objectMapper.writeValueAsString(cart));
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any()))
+                .thenReturn(cart);
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Mock the getRandomBoolean method to always return true
@@ -86,14 +159,43 @@ class OrderServiceTest {
         assertEquals(1L, order.getCartId());
         assertEquals(PaymentStatus.SUCCESS, order.getPaymentStatus());
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(rabbitMQClient, times(1)).sendAndReceive(eq("cart_service_queue"), contains("delete_cart"));
-        verify(rabbitMQClient, times(1)).sendAndReceive(eq("product_service_queue"), contains("decrease_stock"));
+        // Yan etkiler RabbitMQ'ya doğrudan değil, aynı transaction'da outbox'a yazılır
+        verify(outboxRepository, times(1)).saveAll(argThat(sideEffects(
+                "cart_service_queue", "delete_cart", "product_service_queue", "decrease_stock")));
+        verify(rabbitMQClient, never()).sendAndReceiveAsync(anyString(), any(), any(), any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(1.0, meterRegistry.counter("order.payments", "status", "SUCCESS").count());
+    }
+
+    @Test
+    void testCreateOrderFailedPaymentWritesNoSideEffects() throws Exception {
+        CartSchema cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 2)));
+
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any()))
+                .thenReturn(cart);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderService spyOrderService = spy(orderService);
+        doReturn(false).when(spyOrderService).getRandomBoolean();
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(1L);
+
+        Order order = spyOrderService.createOrder(request);
+
+        assertEquals(PaymentStatus.FAILED, order.getPaymentStatus());
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(outboxRepository, never()).saveAll(anyList());
     }
 
     @Test
     void testCreateOrderWithEmptyCart() {
         // Mock RabbitMQ yanıtı
-        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), anyString())).thenReturn(null);
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any())).thenReturn(null);
 
         CreateOrderRequest request = new CreateOrderRequest();
         request.setUserId(101L);
@@ -102,14 +204,126 @@ class OrderServiceTest {
         Exception exception = assertThrows(RuntimeException.class, () -> orderService.createOrder(request));
 
         assertEquals("Cart is empty or not found for cartId: 1", exception.getMessage());
-        verify(rabbitMQClient, times(1)).sendAndReceive(eq("get_cart_request"), anyString());
+        verify(rabbitMQClient, times(1)).sendAndReceive(eq("get_cart_request"),
+                eq(CartRequest.getCart(1L)), eq(CartSchema.class), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testRepeatedIdempotencyKeyReturnsStoredOrder() {
+        CartSchema cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 2)));
+
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any())).thenReturn(cart);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(77L);
+            return order;
+        });
+        when(orderRepository.findWithProductsById(77L)).thenReturn(Optional.of(mockOrder));
+
+        OrderService spyOrderService = spy(orderService);
+        doReturn(true).when(spyOrderService).getRandomBoolean();
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(1L);
+
+        Order first = spyOrderService.createOrder(request, "retry-1");
+        Order second = spyOrderService.createOrder(request, "retry-1");
+
+        assertEquals(77L, first.getId());
+        assertSame(mockOrder, second);
+        // Tekrar isteği sepet/ödeme/outbox adımlarını yeniden çalıştırmaz
+        verify(rabbitMQClient, times(1)).sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any());
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(idempotencyKeyRepository, times(1)).insert(eq("101:retry-1"), eq("101:1"), eq(77L), any());
+    }
+
+    @Test
+    void testIdempotencyKeyWrittenByAnotherInstanceReturnsItsOrder() {
+        CartSchema cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 2)));
+
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), any(), eq(CartSchema.class), any())).thenReturn(cart);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(78L);
+            return order;
+        });
+        // Başka bir örnek aynı anahtarla siparişi (77) bu isteğin transaction'ı sürerken yazdı
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey("101:retry-2");
+        stored.setFingerprint("101:1");
+        stored.setOrderId(77L);
+        when(idempotencyKeyRepository.findById("101:retry-2")).thenReturn(Optional.empty()).thenReturn(Optional.of(stored));
+        when(idempotencyKeyRepository.insert(eq("101:retry-2"), eq("101:1"), eq(78L), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key order_idempotency_keys_pkey"));
+        when(orderRepository.findWithProductsById(77L)).thenReturn(Optional.of(mockOrder));
+
+        OrderService spyOrderService = spy(orderService);
+        doReturn(true).when(spyOrderService).getRandomBoolean();
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(101L);
+        request.setCartId(1L);
+
+        // Sepet çakışması (409) sayılmaz; diğer örneğin siparişi döner, bu isteğin transaction'ı geri alınır
+        assertSame(mockOrder, spyOrderService.createOrder(request, "retry-2"));
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void testCreateOrdersBatchReportsPerItemResult() throws Exception {
+        CartSchema cart = new CartSchema();
+        cart.setId(1L);
+        cart.setUserId(101L);
+        cart.setProducts(List.of(new ProductSchema(201L, 2)));
+
+        when(rabbitMQClient.sendAndReceiveAsync(eq("get_cart_request"), eq(CartRequest.getCart(1L)), eq(CartSchema.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(cart));
+        when(rabbitMQClient.sendAndReceiveAsync(eq("get_cart_request"), eq(CartRequest.getCart(2L)), eq(CartSchema.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(orderBatchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> order.setId(500L));
+            return orders;
+        });
+
+        OrderService spyOrderService = spy(orderService);
+        doReturn(true).when(spyOrderService).getRandomBoolean();
+
+        CreateOrderRequest first = new CreateOrderRequest();
+        first.setUserId(101L);
+        first.setCartId(1L);
+        CreateOrderRequest second = new CreateOrderRequest();
+        second.setUserId(101L);
+        second.setCartId(2L);
+
+        List<BatchOrderResult> results = spyOrderService.createOrders(List.of(first, second), List.of("k-1", "k-2"));
+
+        assertEquals(2, results.size());
+        assertEquals(new BatchOrderResult(0, 500L, PaymentStatus.SUCCESS, null), results.get(0));
+        assertNull(results.get(1).orderId());
+        assertEquals("Cart is empty or not found for cartId: 2", results.get(1).error());
+        verify(orderBatchRepository, times(1)).insertAll(argThat(orders -> orders.size() == 1));
+        verify(outboxRepository, times(1)).saveAll(argThat(sideEffects(
+                "cart_service_queue", "delete_cart", "product_service_queue", "decrease_stock")));
         verify(orderRepository, never()).save(any(Order.class));
+        // Anahtar yalnızca yazılan sipariş için kaydedilir
+        verify(idempotencyKeyRepository, times(1)).insert(eq("101:k-1"), eq("101:1"), eq(500L), any());
+        verify(idempotencyKeyRepository, never()).insert(eq("101:k-2"), any(), any(), any());
     }
 
     @Test
     void testCancelOrderSuccess() {
-        // Mock orderRepository findById davranışı
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(mockOrder));
+        // Mock orderRepository findWithProductsById davranışı
+        when(orderRepository.findWithProductsById(1L)).thenReturn(Optional.of(mockOrder));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         CancelOrderRequest request = new CancelOrderRequest(1L);
@@ -120,14 +334,35 @@ class OrderServiceTest {
         assertTrue(canceledOrder.isCanceled());
         assertEquals(PaymentStatus.CANCELED, canceledOrder.getPaymentStatus()); // Status kontrolü
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(rabbitMQClient, times(1)).sendAndReceive(eq("product_service_queue"), contains("increase_stock"));
+        verify(outboxRepository, times(1)).save(argThat(message ->
+                message.getDestination().equals("product_service_queue")
+                        && message.getPayload().equals("{\"action\":\"increase_stock\",\"products\":"
+                        + "[{\"id\":201,\"amount\":2},{\"id\":202,\"amount\":1}]}")));
+
+
+        // Tekrar iptal stoku ikinci kez iade etmez
+        orderService.cancelOrder(request);
+        verify(orderRepository, times(2)).save(any(Order.class));
+        verify(outboxRepository, times(1)).save(any(OutboxMessage.class));
+    }
+
+    @Test
+    void testCancelFailedPaymentOrderDoesNotRestock() {
+        mockOrder.setPaymentStatus(PaymentStatus.FAILED);
+        when(orderRepository.findWithProductsById(1L)).thenReturn(Optional.of(mockOrder));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order canceledOrder = orderService.cancelOrder(new CancelOrderRequest(1L));
+
+        assertTrue(canceledOrder.isCanceled());
+        verify(outboxRepository, never()).save(any(OutboxMessage.class));
     }
 
 
     @Test
     void testCancelOrderNotFound() {
-        // Mock orderRepository findById davranışı
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        // Mock orderRepository findWithProductsById davranışı
+        when(orderRepository.findWithProductsById(1L)).thenReturn(Optional.empty());
 
         CancelOrderRequest request = new CancelOrderRequest(1L);
 
@@ -135,44 +370,165 @@ class OrderServiceTest {
 
         assertEquals("Order not found: 1", exception.getMessage());
         verify(orderRepository, never()).save(any(Order.class));
-        verify(rabbitMQClient, never()).sendAndReceive(eq("product_service_queue"), anyString());
+        verify(outboxRepository, never()).save(any(OutboxMessage.class));
     }
 
     @Test
     void testGetAllOrders() {
-        // Mock findAll davranışı
-        when(orderRepository.findAll()).thenReturn(List.of(mockOrder, new Order()));
-
-        List<Order> orders = orderService.getAllOrders();
+        // Mock findPageIds / findResponseRowsByIdIn davranışı
+        Order second = new Order();
+        second.setId(2L);
+        when(orderRepository.findPageIds(eq(0L), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(orderRepository.findResponseRowsByIdIn(List.of(1L, 2L))).thenReturn(rows(mockOrder, second));
+
+        OrderPage page = orderService.getOrders(OrderFilter.none(), null, 50);
+
+        assertNotNull(page);
+        assertEquals(2, page.orders().size());
+        assertNull(page.nextCursor());
+        verify(orderRepository, times(1)).findPageIds(eq(0L), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.ofSize(51)));
+    }
 
-        assertNotNull(orders);
-        assertEquals(2, orders.size());
-        verify(orderRepository, times(1)).findAll();
+    @Test
+    void testGetAllOrdersReturnsNextCursor() {
+        Order second = new Order();
+        second.setId(2L);
+        when(orderRepository.findPageIds(eq(1L), eq(PaymentStatus.SUCCESS), eq(false), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(2L, 3L));
+        when(orderRepository.findResponseRowsByIdIn(List.of(2L))).thenReturn(rows(second));
+
+        OrderFilter filter = new OrderFilter(PaymentStatus.SUCCESS, false, null, null);
+        OrderPage page = orderService.getOrders(filter, 1L, 1);
+
+        assertEquals(1, page.orders().size());
+        assertEquals(2L, page.nextCursor());
     }
 
     @Test
     void testGetOrderById() {
-        // Mock findById davranışı
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(mockOrder));
+        // Mock findResponseRowsById davranışı
+        when(orderRepository.findResponseRowsById(1L)).thenReturn(rows(mockOrder));
 
-        Order order = orderService.getOrderById(1L);
+        OrderResponse order = orderService.getOrderById(1L);
 
         assertNotNull(order);
-        assertEquals(1L, order.getId());
-        assertEquals(101L, order.getUserId());
-        verify(orderRepository, times(1)).findById(1L);
+        assertEquals(1L, order.id());
+        assertEquals(101L, order.userId());
+        assertArrayEquals(new long[]{201L, 202L}, order.productIds());
+        verify(orderRepository, times(1)).findResponseRowsById(1L);
+        verify(orderRepository, never()).findWithProductsById(anyLong());
+    }
+
+    @Test
+    void testGetOrderByIdServedFromCacheUntilCanceled() {
+        when(orderRepository.findResponseRowsById(1L)).thenAnswer(invocation -> rows(mockOrder));
+        when(orderRepository.findWithProductsById(1L)).thenReturn(Optional.of(mockOrder));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderResponse first = orderService.getOrderById(1L);
+        OrderResponse cached = orderService.getOrderById(1L);
+
+        assertSame(first, cached);
+        assertEquals(2, cached.productIds().length);
+        assertEquals(201L, cached.productIds()[0]);
+        verify(orderRepository, times(1)).findResponseRowsById(1L);
+        assertEquals(1, orderCache.getOrderCache().getHitCount());
+
+        // İptal sonrası önbellek geçersiz; sonraki okuma veritabanına gider
+        orderService.cancelOrder(new CancelOrderRequest(1L));
+        OrderResponse reloaded = orderService.getOrderById(1L);
+
+        assertTrue(reloaded.canceled());
+        verify(orderRepository, times(2)).findResponseRowsById(1L);
+    }
+
+    @Test
+    void testReadRacingInvalidationIsNotCached() {
+        // Okuma sürerken sipariş değişir; okunan eski değer önbelleğe yazılmamalı
+        when(orderRepository.findResponseRowsById(1L)).thenAnswer(invocation -> {
+            orderCache.invalidate(1L, 101L);
+            return rows(mockOrder);
+        });
+        when(orderRepository.findResponseRowsByUserId(101L)).thenAnswer(invocation -> {
+            orderCache.invalidate(1L, 101L);
+            return rows(mockOrder);
+        });
+
+        orderService.getOrderById(1L);
+        orderService.getOrdersByUserId(101L);
+
+        assertNull(orderCache.getOrder(1L));
+        assertNull(orderCache.getUserOrders(101L));
     }
 
     @Test
     void testGetOrdersByUserId() {
-        // Mock findByUserId davranışı
-        when(orderRepository.findByUserId(101L)).thenReturn(List.of(mockOrder));
+        // Mock findResponseRowsByUserId davranışı
+        when(orderRepository.findResponseRowsByUserId(101L)).thenReturn(rows(mockOrder));
 
-        List<Order> orders = orderService.getOrdersByUserId(101L);
+        List<OrderResponse> orders = orderService.getOrdersByUserId(101L);
 
         assertNotNull(orders);
         assertEquals(1, orders.size());
-        assertEquals(101L, orders.get(0).getUserId());
-        verify(orderRepository, times(1)).findByUserId(101L);
+        assertEquals(101L, orders.get(0).userId());
+        // Yanıt JSON'u entity'nin eski biçimiyle aynı
+        String json = assertDoesNotThrow(() -> objectMapper.writeValueAsString(orders.get(0)));
+        assertTrue(json.startsWith("{\"id\":1,\"userId\":101,\"cartId\":1,\"createdAt\":\""));
+        assertTrue(json.endsWith("\"paymentStatus\":\"SUCCESS\",\"canceled\":false,"
+                + "\"products\":[{\"productId\":201,\"quantity\":2},{\"productId\":202,\"quantity\":1}]}"));
+        verify(orderRepository, times(1)).findResponseRowsByUserId(101L);
+    }
+
+    @Test
+    void testNullProductIdIsWrittenAsNull() throws Exception {
+        OrderProduct unknown = new OrderProduct();
+        unknown.setQuantity(3);
+        mockOrder.setProducts(new ArrayList<>(List.of(unknown, new OrderProduct(201L, 2))));
+
+        OrderResponse response = OrderResponse.of(mockOrder);
+
+        // Eski entity JSON'u gibi null yazılır, 0 yazılmaz
+        assertNull(response.productId(0));
+        assertEquals(201L, response.productId(1));
+        assertTrue(objectMapper.writeValueAsString(response).endsWith(
+                "\"products\":[{\"productId\":null,\"quantity\":3},{\"productId\":201,\"quantity\":2}]}"));
+    }
+
+    // Siparişleri OrderRepository'nin yanıt projeksiyonu satırlarına çevir (kalem başına bir satır)
+    private static List<Object[]> rows(Order... orders) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Order order : orders) {
+            List<OrderProduct> products = order.getProducts() != null ? order.getProducts() : List.of();
+            if (products.isEmpty()) {
+                rows.add(row(order, null));
+            }
+            products.forEach(product -> rows.add(row(order, product)));
+        }
+        return rows;
+    }
+
+    private static Object[] row(Order order, OrderProduct product) {
+        return new Object[]{order.getId(), order.getUserId(), order.getCartId(), order.getCreatedAt(), order.getUpdatedAt(),
+                order.getPaymentStatus(), order.isCanceled(), null,
+                product != null ? product.getProductId() : null, product != null ? product.getQuantity() : null};
+    }
+
+    // Outbox'a yazılan mesajlar sırasıyla (kuyruk, aksiyon) çiftleriyle eşleşiyor mu
+    private static ArgumentMatcher<Iterable<OutboxMessage>> sideEffects(String... queueActionPairs) {
+        return messages -> {
+            List<OutboxMessage> list = new ArrayList<>();
+            messages.forEach(list::add);
+            if (list.size() * 2 != queueActionPairs.length) {
+                return false;
+            }
+            for (int i = 0; i < list.size(); i++) {
+                if (!list.get(i).getDestination().equals(queueActionPairs[2 * i])
+                        || !list.get(i).getPayload().contains(queueActionPairs[2 * i + 1])) {
+                    return false;
+                }
+            }
+            return true;
+        };
     }
 }
@@ -0,0 +1,95 @@
+package com.micro.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.client.StockDeltaAggregator;
+import com.micro.order.entity.OutboxMessage;
+import com.micro.order.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+    private final StockDeltaAggregator stockDeltaAggregator = mock(StockDeltaAggregator.class);
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxRepository, rabbitMQClient, stockDeltaAggregator, new ObjectMapper(),
+                transactionTemplate, 10, 1000, 500, 60000, 30000, 3);
+    }
+
+    @Test
+    void testDeliveredMessagesAreDeletedAndFailedOnesBackOff() {
+        outboxRepository.save(new OutboxMessage("cart_service_queue", "{ \"action\": \"delete_cart\", \"cart_id\": 1 }"));
+        outboxRepository.save(new OutboxMessage("product_service_queue",
+                "{\"action\":\"decrease_stock\",\"products\":[{\"id\":201,\"amount\":2}]}"));
+
+        when(rabbitMQClient.sendAndReceiveAsync(eq("cart_service_queue"), any(), eq(Void.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(stockDeltaAggregator.submit(anyList(), eq("decrease_stock")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("product service down")));
+
+        assertEquals(2, outboxRelay.relayBatch());
+
+        List<OutboxMessage> remaining = outboxRepository.findAll();
+        assertEquals(1, remaining.size());
+        OutboxMessage retry = remaining.get(0);
+        assertEquals("product_service_queue", retry.getDestination());
+        assertEquals(1, retry.getAttempts());
+        assertTrue(retry.getLastError().contains("product service down"));
+        assertTrue(retry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(stockDeltaAggregator, times(1)).submit(argThat(products ->
+                products.size() == 1 && products.get(0).getProductId() == 201L && products.get(0).getQuantity() == 2),
+                eq("decrease_stock"));
+        verify(stockDeltaAggregator, times(1)).flush();
+        verify(rabbitMQClient).sendAndReceiveAsync(eq("cart_service_queue"), argThat(payload ->
+                payload instanceof JsonNode node && node.get("cart_id").asLong() == 1L), eq(Void.class));
+
+        // Bekleme süresi dolmadan mesaj tekrar alınmaz
+        assertEquals(0, outboxRelay.relayBatch());
+    }
+
+    @Test
+    void testMessageIsDeadLetteredAfterMaxAttempts() {
+        OutboxMessage message = new OutboxMessage("cart_service_queue", "{ \"action\": \"delete_cart\", \"cart_id\": 2 }");
+        message.setAttempts(2);
+        outboxRepository.save(message);
+
+        when(rabbitMQClient.sendAndReceiveAsync(eq("cart_service_queue"), any(), eq(Void.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("x".repeat(1000))));
+
+        outboxRelay.relay();
+
+        // Mesaj silinmez ama bir daha seçilmez ve gecikmeye sayılmaz; uzun hata mesajı kolona sığacak kadar kısaltılır
+        OutboxMessage dead = outboxRepository.findAll().get(0);
+        assertEquals(3, dead.getAttempts());
+        assertNull(dead.getNextAttemptAt());
+        assertNotNull(dead.getDeadLetteredAt());
+        assertEquals(255, dead.getLastError().length());
+        assertEquals(1, outboxRelay.getDeadLetteredCount());
+        assertEquals(0, outboxRelay.getLagMillis());
+        assertEquals(0, outboxRelay.relayBatch());
+    }
+}
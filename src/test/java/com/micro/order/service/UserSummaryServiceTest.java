@@ -0,0 +1,187 @@
+package com.micro.order.service;
+
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.dto.BatchCancelRequest;
+import com.micro.order.dto.CancelOrderRequest;
+import com.micro.order.dto.CartRequest;
+import com.micro.order.dto.CartSchema;
+import com.micro.order.dto.CreateOrderRequest;
+import com.micro.order.dto.ProductSchema;
+import com.micro.order.dto.SummaryRebuildResult;
+import com.micro.order.entity.Order;
+import com.micro.order.entity.UserOrderSummary;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.OrderArchiveRepository;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.repository.UserOrderSummaryRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.support.OrderServiceBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Artımlı güncellenen kullanıcı özetlerinin baştan hesaplanan özetlerle aynı olduğunu doğrular.
+// Yeniden hesaplama parçaları ayrı bağlantılarda çalıştığından test transaction'ı kullanılmaz.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSummaryServiceTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private UserOrderSummaryRepository summaryRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+    private final Deque<Boolean> payments = new ArrayDeque<>();
+
+    private OrderService orderService;
+    private UserSummaryService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        UserOrderSummaryWriter writer = new UserOrderSummaryWriter(jdbcTemplate, new SimpleMeterRegistry());
+        orderService = new OrderServiceBuilder()
+                .orderRepository(orderRepository)
+                .rabbitMQClient(rabbitMQClient)
+                .outboxRepository(outboxRepository)
+                .transactionTemplate(transactionTemplate)
+                .userSummaryWriter(writer)
+                .archivedOrderRepository(archivedOrderRepository)
+                .payments(payments::poll)
+                .build();
+        // Parça başına bir kullanıcı: her kullanıcı ayrı bir parçada, paralel hesaplanır
+        summaryService = new UserSummaryService(summaryRepository, writer, archivedOrderRepository, transactionTemplate,
+                new OrderCache(0, 0, 0, 0), 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from order_user_product_totals");
+        jdbcTemplate.update("delete from order_user_summaries");
+        archivedOrderRepository.deleteAll();
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void testIncrementalSummaryMatchesRebuild() {
+        payments.addAll(List.of(true, true, false, true));
+        Order first = createOrder(101L, 1L, product(201L, 2), product(202L, 1));
+        Order second = createOrder(101L, 2L, product(201L, 3));
+        Order third = createOrder(101L, 3L, product(203L, 5));
+        createOrder(102L, 4L, product(201L, 1));
+
+        orderService.cancelOrder(new CancelOrderRequest(second.getId()));
+
+        UserOrderSummary summary = summaryService.getSummary(101L);
+        assertEquals(1, summary.getSuccessCount());
+        assertEquals(1, summary.getFailedCount());
+        assertEquals(1, summary.getCanceledCount());
+        assertEquals(3, summary.getTotalOrders());
+        // Ödemesi başarısız siparişin (203) ve iptal edilen siparişin ürünleri sayılmaz
+        assertEquals(Map.of(201L, 2L, 202L, 1L), summary.getProductQuantities());
+        assertEquals(orderRepository.findById(third.getId()).orElseThrow().getCreatedAt(), summary.getLastOrderAt());
+
+        orderService.cancelOrders(new BatchCancelRequest(null, 101L, null, null), progress -> { });
+
+        UserOrderSummary canceled = summaryService.getSummary(101L);
+        assertEquals(0, canceled.getSuccessCount() + canceled.getFailedCount());
+        assertEquals(3, canceled.getCanceledCount());
+        assertTrue(canceled.getProductQuantities().isEmpty());
+        UserOrderSummary other = summaryService.getSummary(102L);
+
+        // İptal edilen siparişler arşive taşınır; yeniden hesaplama onları arşivden okur
+        OrderArchiver archiver = new OrderArchiver(orderRepository,
+                new OrderArchiveRepository(jdbcTemplate, 100, new SimpleMeterRegistry()),
+                transactionTemplate, new OrderCache(0, 0, 0, 0), 365, 30, 100);
+        assertEquals(3, archiver.archive(LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.now().plusDays(1)));
+
+        SummaryRebuildResult result = summaryService.rebuild();
+
+        assertEquals(2, result.users());
+        assertTrue(result.chunks() >= 2);
+        assertEquals(canceled, summaryService.getSummary(101L));
+        assertEquals(other, summaryService.getSummary(102L));
+        assertEquals(Map.of(201L, 1L), other.getProductQuantities());
+        assertEquals(first.getUserId(), canceled.getUserId());
+    }
+
+    @Test
+    void testNullProductIdIsSkippedOnCreateAndCancel() {
+        payments.addAll(List.of(true, true));
+        Order legacy = createOrder(101L, 1L, product(203L, 4), product(201L, 2));
+        createOrder(101L, 2L, product(202L, 1));
+        // Eski kayıtlardaki gibi ürün id'si olmayan kalem
+        jdbcTemplate.update("update order_products set product_id = null where product_id = 203");
+        summaryService.rebuild();
+
+        assertEquals(Map.of(201L, 2L, 202L, 1L), summaryService.getSummary(101L).getProductQuantities());
+
+        // Ürün id'si olmayan kalemi olan ödenmiş sipariş iptal edilebilir
+        orderService.cancelOrder(new CancelOrderRequest(legacy.getId()));
+
+        UserOrderSummary summary = summaryService.getSummary(101L);
+        assertEquals(1, summary.getCanceledCount());
+        assertEquals(Map.of(202L, 1L), summary.getProductQuantities());
+        summaryService.rebuild();
+        assertEquals(summary, summaryService.getSummary(101L));
+    }
+
+    @Test
+    void testUserWithoutOrdersHasEmptySummary() {
+        UserOrderSummary summary = summaryService.getSummary(999L);
+
+        assertEquals(999L, summary.getUserId());
+        assertEquals(0, summary.getTotalOrders());
+        assertNull(summary.getLastOrderAt());
+    }
+
+    private Order createOrder(Long userId, Long cartId, ProductSchema... products) {
+        CartSchema cart = new CartSchema();
+        cart.setId(cartId);
+        cart.setUserId(userId);
+        cart.setProducts(List.of(products));
+        when(rabbitMQClient.sendAndReceive(eq("get_cart_request"), eq(CartRequest.getCart(cartId)), eq(CartSchema.class), any()))
+                .thenReturn(cart);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setCartId(cartId);
+        return orderService.createOrder(request);
+    }
+
+    private static ProductSchema product(long productId, int amount) {
+        return new ProductSchema(productId, amount);
+    }
+}
@@ -0,0 +1,97 @@
+package com.micro.order.support;
+
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.util.Deadline;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Broker olmadan çalışan RabbitMQClient: her kuyruk için kayıtlı bir yanıtlayıcı çağrılır.
+ * Yanıtlayıcı tanımlanmamış kuyruklar boş yanıt döner. Benchmark ve yük testlerinde kullanılır.
+ * Tek yönlü gönderimlerde de yanıtlayıcı çağrılır (dönüşü yok sayılır); sendAll listeyi tek çağrıda verir.
+ * asyncExecutor verilirse asenkron istekler çağıranı bloklamadan o executor'da yanıtlanır.
+ */
+public class InMemoryRabbitMQClient extends RabbitMQClient {
+
+    private final Map<String, Function<Object, Object>> responders = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> messageCounts = new ConcurrentHashMap<>();
+    private Executor asyncExecutor;
+
+    public InMemoryRabbitMQClient() {
+        super(null, null, null, null, null);
+    }
+
+    // Yanıtlayıcı, istek nesnesini alır ve yanıt tipinde bir nesne döner
+    public InMemoryRabbitMQClient respond(String queue, Function<Object, Object> responder) {
+        responders.put(queue, responder);
+        return this;
+    }
+
+    public InMemoryRabbitMQClient asyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
+    @Override
+    public <T> T sendAndReceive(String queue, Object request, Class<T> replyType) {
+        count(queue, 1);
+        Object reply = responders.getOrDefault(queue, message -> null).apply(request);
+        return replyType == Void.class ? null : replyType.cast(reply);
+    }
+
+    @Override
+    public <T> T sendAndReceive(String queue, Object request, Class<T> replyType, Deadline deadline) {
+        return sendAndReceive(queue, request, replyType);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String queue, Object request, Class<T> replyType) {
+        if (asyncExecutor != null) {
+            return CompletableFuture.supplyAsync(() -> sendAndReceive(queue, request, replyType), asyncExecutor);
+        }
+        try {
+            return CompletableFuture.completedFuture(sendAndReceive(queue, request, replyType));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String queue, Object request, Class<T> replyType, Deadline deadline) {
+        return sendAndReceiveAsync(queue, request, replyType);
+    }
+
+    @Override
+    public void send(String queue, Object message) {
+        count(queue, 1);
+        consume(queue, message);
+    }
+
+    @Override
+    public void sendAll(String queue, List<?> messages) {
+        count(queue, messages.size());
+        consume(queue, messages);
+    }
+
+    public long getMessageCount(String queue) {
+        AtomicLong count = messageCounts.get(queue);
+        return count != null ? count.get() : 0L;
+    }
+
+    private void consume(String queue, Object message) {
+        Function<Object, Object> responder = responders.get(queue);
+        if (responder != null) {
+            responder.apply(message);
+        }
+    }
+
+    private void count(String queue, int n) {
+        messageCounts.computeIfAbsent(queue, key -> new AtomicLong()).addAndGet(n);
+    }
+}
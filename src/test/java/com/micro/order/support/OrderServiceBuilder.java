@@ -0,0 +1,177 @@
+package com.micro.order.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.micro.order.client.LogPublisher;
+import com.micro.order.client.RabbitMQClient;
+import com.micro.order.repository.ArchivedOrderRepository;
+import com.micro.order.repository.CartClaimRepository;
+import com.micro.order.repository.LineItemStorage;
+import com.micro.order.repository.OrderBatchRepository;
+import com.micro.order.repository.OrderChangeRepository;
+import com.micro.order.repository.OrderExportRepository;
+import com.micro.order.repository.OrderRepository;
+import com.micro.order.repository.OutboxRepository;
+import com.micro.order.repository.UserOrderSummaryWriter;
+import com.micro.order.service.CartLocks;
+import com.micro.order.service.IdempotencyStore;
+import com.micro.order.service.OrderCache;
+import com.micro.order.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testler ve benchmark'lar için OrderService kurucusu. Verilmeyen bağımlılıklar Mockito mock'ları veya
+ * kapalı/küçük varsayılanlardır (önbellek kapalı, 16 şeritli sepet kilidi, kalemler order_products'ta,
+ * sepet sahiplenme her zaman başarılı).
+ * payments verilirse ödeme sonucu rastgele değil ondan alınır.
+ */
+public class OrderServiceBuilder {
+
+    private OrderRepository orderRepository = mock(OrderRepository.class);
+    private RabbitMQClient rabbitMQClient = mock(RabbitMQClient.class);
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private LogPublisher logPublisher = mock(LogPublisher.class);
+    private OrderExportRepository orderExportRepository = mock(OrderExportRepository.class);
+    private OrderBatchRepository orderBatchRepository = mock(OrderBatchRepository.class);
+    private OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private TransactionTemplate transactionTemplate;
+    private OrderCache orderCache = new OrderCache(0, 0, 0, 0);
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private UserOrderSummaryWriter userSummaryWriter = mock(UserOrderSummaryWriter.class);
+    private ArchivedOrderRepository archivedOrderRepository = mock(ArchivedOrderRepository.class);
+    private OrderChangeRepository orderChangeRepository = mock(OrderChangeRepository.class);
+    private LineItemStorage lineItemStorage = new LineItemStorage("table");
+    private CartLocks cartLocks;
+    private CartClaimRepository cartClaimRepository;
+    private BooleanSupplier payments;
+
+    public OrderServiceBuilder orderRepository(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder rabbitMQClient(RabbitMQClient rabbitMQClient) {
+        this.rabbitMQClient = rabbitMQClient;
+        return this;
+    }
+
+    public OrderServiceBuilder objectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        return this;
+    }
+
+    public OrderServiceBuilder logPublisher(LogPublisher logPublisher) {
+        this.logPublisher = logPublisher;
+        return this;
+    }
+
+    public OrderServiceBuilder orderExportRepository(OrderExportRepository orderExportRepository) {
+        this.orderExportRepository = orderExportRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder orderBatchRepository(OrderBatchRepository orderBatchRepository) {
+        this.orderBatchRepository = orderBatchRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder outboxRepository(OutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder transactionTemplate(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+        return this;
+    }
+
+    public OrderServiceBuilder orderCache(OrderCache orderCache) {
+        this.orderCache = orderCache;
+        return this;
+    }
+
+    public OrderServiceBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    public OrderServiceBuilder idempotencyStore(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+        return this;
+    }
+
+    public OrderServiceBuilder userSummaryWriter(UserOrderSummaryWriter userSummaryWriter) {
+        this.userSummaryWriter = userSummaryWriter;
+        return this;
+    }
+
+    public OrderServiceBuilder archivedOrderRepository(ArchivedOrderRepository archivedOrderRepository) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder orderChangeRepository(OrderChangeRepository orderChangeRepository) {
+        this.orderChangeRepository = orderChangeRepository;
+        return this;
+    }
+
+    public OrderServiceBuilder lineItemStorage(LineItemStorage lineItemStorage) {
+        this.lineItemStorage = lineItemStorage;
+        return this;
+    }
+
+    public OrderServiceBuilder cartLocks(CartLocks cartLocks) {
+        this.cartLocks = cartLocks;
+        return this;
+    }
+
+    public OrderServiceBuilder cartClaimRepository(CartClaimRepository cartClaimRepository) {
+        this.cartClaimRepository = cartClaimRepository;
+        return this;
+    }
+
+    // Ödeme sonucu (true: SUCCESS)
+    public OrderServiceBuilder payments(BooleanSupplier payments) {
+        this.payments = payments;
+        return this;
+    }
+
+    public OrderService build() {
+        TransactionTemplate transactions = transactionTemplate != null
+                ? transactionTemplate : new TransactionTemplate(mock(PlatformTransactionManager.class));
+        CartLocks locks = cartLocks != null ? cartLocks : new CartLocks(16, 1000, new SimpleMeterRegistry());
+        CartClaimRepository claims = cartClaimRepository != null ? cartClaimRepository : claimingEverything();
+        if (payments == null) {
+            return new OrderService(orderRepository, rabbitMQClient, objectMapper, logPublisher, orderExportRepository,
+                    orderBatchRepository, outboxRepository, transactions, orderCache, meterRegistry, idempotencyStore,
+                    userSummaryWriter, archivedOrderRepository, orderChangeRepository, lineItemStorage, locks, claims);
+        }
+        BooleanSupplier paymentResults = payments;
+        return new OrderService(orderRepository, rabbitMQClient, objectMapper, logPublisher, orderExportRepository,
+                orderBatchRepository, outboxRepository, transactions, orderCache, meterRegistry, idempotencyStore,
+                userSummaryWriter, archivedOrderRepository, orderChangeRepository, lineItemStorage, locks, claims) {
+            @Override
+            protected boolean getRandomBoolean() {
+                return paymentResults.getAsBoolean();
+            }
+        };
+    }
+
+    // Verilmezse her sepet sahiplenilebilir (sepet başına tek sipariş kısıtı uygulanmaz)
+    private static CartClaimRepository claimingEverything() {
+        CartClaimRepository claims = mock(CartClaimRepository.class);
+        when(claims.claim(anyMap())).thenAnswer(invocation -> new HashSet<>(invocation.<Map<Long, Long>>getArgument(0).keySet()));
+        return claims;
+    }
+}